@@ -0,0 +1,53 @@
+// Carga mista sobre as telas que usam o banco, para comparar threads de
+// plataforma e threads virtuais (executar.sh). Cada usuario virtual repete:
+//   70% pesquisa de pessoas por nome, numa pagina de 1 a 20
+//   20% pesquisa de vacinas por nome
+//   10% exportacao CSV de pessoas com um nome de duas palavras (resposta longa,
+//       prende uma conexao enquanto escreve)
+//
+// Variaveis: URL (padrao http://localhost:8080), USUARIOS (padrao 400, acima
+// das 200 threads do Tomcat) e DURACAO (padrao 60s).
+import http from 'k6/http';
+import { check } from 'k6';
+
+const URL = __ENV.URL || 'http://localhost:8080';
+
+const PALAVRAS = ['maria', 'jose', 'ana', 'joao', 'antonio', 'carlos', 'paulo', 'pedro', 'silva', 'santos',
+    'oliveira', 'souza', 'lima', 'gomes', 'costa', 'rocha', 'nunes', 'moura', 'campos', 'freitas'];
+
+export const options = {
+    scenarios: {
+        carga: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.USUARIOS || 400),
+            duration: __ENV.DURACAO || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    // A comparacao le as metricas de cada tipo de requisicao pela tag "nome"
+    thresholds: {
+        'http_req_duration{nome:pessoas}': ['p(99)>=0'],
+        'http_req_duration{nome:vacinas}': ['p(99)>=0'],
+        'http_req_duration{nome:exportacao}': ['p(99)>=0'],
+    },
+};
+
+function palavra() {
+    return PALAVRAS[Math.floor(Math.random() * PALAVRAS.length)];
+}
+
+export default function () {
+    const sorteio = Math.random();
+    let resposta;
+    if (sorteio < 0.7) {
+        const pagina = Math.floor(Math.random() * 20);
+        resposta = http.get(`${URL}/pessoas/pesquisar?nome=${palavra()}&page=${pagina}`,
+            { tags: { nome: 'pessoas' } });
+    } else if (sorteio < 0.9) {
+        resposta = http.get(`${URL}/vacinas/pesquisar?nome=${palavra()}`, { tags: { nome: 'vacinas' } });
+    } else {
+        const nome = encodeURIComponent(`${palavra()} ${palavra()}`);
+        resposta = http.get(`${URL}/pessoas/exportar?formato=CSV&nome=${nome}`, { tags: { nome: 'exportacao' } });
+    }
+    check(resposta, { 'status 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,113 @@
+#!/usr/bin/env bash
+# Vazao e latencia da aplicacao com threads de plataforma e com threads
+# virtuais (spring.threads.virtual.enabled), sob a mesma carga do cenario.js
+# (k6). Com as threads virtuais o limitador de conexoes
+# (banco.concorrencia.habilitado) e ligado junto, como no application.properties.
+#
+# Uso: ./executar.sh
+# Variaveis: PGHOST, PGPORT, PGUSER, PGPASSWORD (as do psql e da aplicacao),
+# BANCO (padrao controlevacinacao_carga, apagado e recriado), LINHAS (registros
+# de vacina e pessoa, padrao 1000000), USUARIOS (padrao 400), DURACAO (padrao
+# 60s), AQUECIMENTO (padrao 20s) e PORTA (padrao 8080).
+#
+# O cache das pesquisas e desligado para que todas as requisicoes cheguem ao
+# banco. Grava em resultados/:
+#   <modo>.json      resumo do k6 (--summary-export)
+#   <modo>.log       log da aplicacao; no modo virtual inclui as pilhas de
+#                    -Djdk.tracePinnedThreads, threads virtuais presas ao carrier
+#   <modo>.prom      /actuator/prometheus ao final da carga
+#   comparacao.txt   req/s, falhas e p50/p95/p99 (ms) de cada modo
+set -euo pipefail
+
+cd "$(dirname "$0")"
+PROJETO=../..
+MIGRACOES=$PROJETO/src/main/resources/db/migration
+BANCO=${BANCO:-controlevacinacao_carga}
+LINHAS=${LINHAS:-1000000}
+USUARIOS=${USUARIOS:-400}
+DURACAO=${DURACAO:-60s}
+AQUECIMENTO=${AQUECIMENTO:-20s}
+PORTA=${PORTA:-8080}
+URL=http://localhost:$PORTA
+RESULTADOS=resultados
+
+psql_banco() {
+    psql -X -q -v ON_ERROR_STOP=1 -d "$BANCO" "$@"
+}
+
+echo "== Criando o banco $BANCO com $LINHAS linhas"
+dropdb --if-exists "$BANCO"
+createdb "$BANCO"
+for migracao in "$MIGRACOES"/V*.sql; do
+    psql_banco -f "$migracao"
+done
+psql_banco -v linhas="$LINHAS" -f ../pesquisa/dados.sql
+# As migracoes ja foram aplicadas pelo psql, o Flyway so registra a versao atual
+VERSAO=$(ls "$MIGRACOES" | sed -n 's/^V0*\([0-9]*\)__.*/\1/p' | sort -n | tail -1)
+
+echo "== Empacotando a aplicacao"
+(cd "$PROJETO" && mvn -B -q -DskipTests package)
+JAR=$(ls "$PROJETO"/target/controlevacinacao-*.jar | grep -v original | head -1)
+
+mkdir -p "$RESULTADOS"
+rm -f "$RESULTADOS/comparacao.txt"
+
+esperar_aplicacao() {
+    for _ in $(seq 1 120); do
+        if curl -fs "$URL/actuator/health" > /dev/null; then
+            return 0
+        fi
+        sleep 1
+    done
+    echo "A aplicação não respondeu em $URL" >&2
+    return 1
+}
+
+medir() {
+    local modo=$1 virtual=$2 opcoes_jvm=()
+    if [ "$virtual" = true ]; then
+        opcoes_jvm+=(-Djdk.tracePinnedThreads=short)
+    fi
+    echo "== $modo: iniciando a aplicação"
+    java "${opcoes_jvm[@]}" -jar "$JAR" \
+        --server.port="$PORTA" \
+        --spring.datasource.url="jdbc:postgresql://${PGHOST:-localhost}:${PGPORT:-5432}/$BANCO" \
+        --spring.datasource.username="${PGUSER:-postgres}" \
+        --spring.datasource.password="${PGPASSWORD:-}" \
+        --spring.flyway.baseline-on-migrate=true \
+        --spring.flyway.baseline-version="$VERSAO" \
+        --spring.threads.virtual.enabled="$virtual" \
+        --cache.pesquisas.tamanho-maximo=0 \
+        > "$RESULTADOS/$modo.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2> /dev/null || true" EXIT
+    esperar_aplicacao
+
+    echo "== $modo: aquecimento ($AQUECIMENTO)"
+    k6 run -q -e URL="$URL" -e USUARIOS="$USUARIOS" -e DURACAO="$AQUECIMENTO" cenario.js > /dev/null
+    echo "== $modo: medição ($DURACAO, $USUARIOS usuários)"
+    k6 run -q -e URL="$URL" -e USUARIOS="$USUARIOS" -e DURACAO="$DURACAO" \
+        --summary-export "$RESULTADOS/$modo.json" cenario.js > /dev/null
+    curl -fs "$URL/actuator/prometheus" > "$RESULTADOS/$modo.prom"
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    trap - EXIT
+
+    {
+        jq -r --arg m "$modo" '
+            def ms: . * 10 | round / 10;
+            "\($m): \(.metrics.http_reqs.rate | floor) req/s, falhas \(.metrics.http_req_failed.value * 100 | . * 100 | round / 100)%",
+            (.metrics | to_entries[] | select(.key | startswith("http_req_duration")) |
+                "  \(.key): p50=\(.value["p(50)"] | ms) p95=\(.value["p(95)"] | ms) p99=\(.value["p(99)"] | ms) ms")
+        ' "$RESULTADOS/$modo.json"
+        if [ "$virtual" = true ]; then
+            echo "  pilhas de threads virtuais presas (jdk.tracePinnedThreads): $(grep -c '<== monitors' "$RESULTADOS/$modo.log" || true)"
+        fi
+    } >> "$RESULTADOS/comparacao.txt"
+}
+
+medir plataforma false
+medir virtual true
+
+cat "$RESULTADOS/comparacao.txt"
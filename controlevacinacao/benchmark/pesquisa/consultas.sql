@@ -0,0 +1,47 @@
+-- Os SQL que o Hibernate gera para as pesquisas (PessoaQueriesImpl e
+-- VacinaQueriesImpl), com os valores ja vinculados. EXPLAIN mostra se os
+-- indices da V04 (trigramas) e da V05 (busca por palavras) sao usados.
+\set ON_ERROR_STOP on
+
+\echo '== vacina: nome contem (V04, vacina_nome_trgm_idx)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT v.codigo, v.descricao, v.nome, v.status FROM vacina v
+WHERE v.status = 'ATIVO' AND lower(v.nome) LIKE '%oliveira%' ESCAPE '!'
+ORDER BY v.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
+
+\echo '== vacina: descricao contem (V04, vacina_descricao_trgm_idx)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT v.codigo, v.descricao, v.nome, v.status FROM vacina v
+WHERE v.status = 'ATIVO' AND lower(v.descricao) LIKE '%contra cardoso%' ESCAPE '!'
+ORDER BY v.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
+
+\echo '== vacina: total do filtro nome contem'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(v.codigo) FROM vacina v
+WHERE v.status = 'ATIVO' AND lower(v.nome) LIKE '%oliveira santana%' ESCAPE '!';
+
+\echo '== vacina: nome por palavras (V05, vacina_nome_fts_idx)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT v.codigo, v.descricao, v.nome, v.status FROM vacina v
+WHERE v.status = 'ATIVO'
+  AND (to_tsvector('portuguese', coalesce(v.nome, '')) @@ plainto_tsquery('portuguese', 'oliveira santana')) = true
+ORDER BY v.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
+
+\echo '== pessoa: nome contem (V04, pessoa_nome_trgm_idx)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT p.codigo, p.cpf, p.nome, p.status FROM pessoa p
+WHERE p.status = 'ATIVO' AND lower(p.nome) LIKE '%goncalves teix%' ESCAPE '!'
+ORDER BY p.nome ASC, p.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
+
+\echo '== pessoa: cpf contem (V04, pessoa_cpf_trgm_idx)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT p.codigo, p.cpf, p.nome, p.status FROM pessoa p
+WHERE p.status = 'ATIVO' AND lower(p.cpf) LIKE '%123456%' ESCAPE '!'
+ORDER BY p.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
+
+\echo '== pessoa: nome por palavras (V05, pessoa_nome_fts_idx)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT p.codigo, p.cpf, p.nome, p.status FROM pessoa p
+WHERE p.status = 'ATIVO'
+  AND (to_tsvector('portuguese', coalesce(p.nome, '')) @@ plainto_tsquery('portuguese', 'maria goncalves')) = true
+ORDER BY p.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
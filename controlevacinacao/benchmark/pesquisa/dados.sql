@@ -0,0 +1,40 @@
+-- Popula vacina e pessoa com :linhas registros cada (psql -v linhas=1000000).
+-- Os nomes sao combinacoes de palavras portuguesas, para que tanto o LIKE
+-- '%texto%' (trigramas, V04) quanto a busca por palavras (V05) tenham
+-- seletividades parecidas com as reais. Os CPFs sao unicos (restricao da V08):
+-- multiplicar por 7919, primo com 10^11, embaralha os digitos sem repetir.
+\set ON_ERROR_STOP on
+
+TRUNCATE vacina, pessoa RESTART IDENTITY;
+
+CREATE TEMP TABLE palavras(i int PRIMARY KEY, palavra text);
+INSERT INTO palavras
+SELECT row_number() OVER () - 1, p
+FROM unnest(ARRAY['maria', 'jose', 'ana', 'joao', 'antonio', 'francisca', 'carlos', 'paulo', 'pedro',
+        'lucas', 'luiz', 'marcos', 'luis', 'gabriel', 'rafael', 'daniel', 'marcelo', 'bruno', 'eduardo',
+        'felipe', 'raimundo', 'rodrigo', 'silva', 'santos', 'oliveira', 'souza', 'rodrigues', 'ferreira',
+        'alves', 'pereira', 'lima', 'gomes', 'costa', 'ribeiro', 'martins', 'carvalho', 'almeida', 'lopes',
+        'soares', 'fernandes', 'vieira', 'barbosa', 'rocha', 'dias', 'nascimento', 'andrade', 'moreira',
+        'nunes', 'marques', 'machado', 'mendes', 'freitas', 'cardoso', 'ramos', 'goncalves', 'santana',
+        'teixeira', 'araujo', 'pinto', 'moura', 'cavalcanti', 'monteiro', 'batista', 'campos']) AS p;
+
+INSERT INTO vacina (nome, descricao, status)
+SELECT 'vacina ' || a.palavra || ' ' || b.palavra || ' ' || g,
+       'protege contra ' || c.palavra || ' e ' || a.palavra || ', dose ' || (g % 4 + 1),
+       CASE WHEN g % 20 = 0 THEN 'INATIVO' ELSE 'ATIVO' END
+FROM generate_series(1, :linhas) g
+JOIN palavras a ON a.i = g % 64
+JOIN palavras b ON b.i = (g / 64) % 64
+JOIN palavras c ON c.i = (g / 4096) % 64;
+
+INSERT INTO pessoa (nome, cpf, status)
+SELECT a.palavra || ' ' || b.palavra || ' ' || c.palavra,
+       lpad((g::bigint * 7919 % 100000000000)::text, 11, '0'),
+       CASE WHEN g % 20 = 0 THEN 'INATIVO' ELSE 'ATIVO' END
+FROM generate_series(1, :linhas) g
+JOIN palavras a ON a.i = (g * 7) % 64
+JOIN palavras b ON b.i = (g / 64) % 64
+JOIN palavras c ON c.i = (g / 4096) % 64;
+
+VACUUM ANALYZE vacina;
+VACUUM ANALYZE pessoa;
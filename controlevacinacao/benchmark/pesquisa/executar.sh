@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+# Latencia das pesquisas de texto com 1 e 10 milhoes de linhas, com e sem os
+# indices das migracoes V04 (trigramas) e V05 (busca por palavras).
+#
+# Uso: ./executar.sh [linhas...]    (padrao: 1000000 10000000)
+# Variaveis: PGHOST, PGPORT, PGUSER, PGPASSWORD (as do psql), BANCO
+# (padrao controlevacinacao_benchmark, apagado e recriado), DURACAO (segundos
+# de pgbench por consulta, padrao 30) e CLIENTES (padrao 4).
+#
+# Para cada tamanho grava em resultados/<linhas>/:
+#   explain-com-indices.txt, explain-sem-indices.txt  EXPLAIN (ANALYZE, BUFFERS)
+#   latencia.txt  media, p50, p95 e p99 (ms) de cada consulta nos dois cenarios
+set -euo pipefail
+
+cd "$(dirname "$0")"
+MIGRACOES=../../src/main/resources/db/migration
+BANCO=${BANCO:-controlevacinacao_benchmark}
+DURACAO=${DURACAO:-30}
+CLIENTES=${CLIENTES:-4}
+TAMANHOS=("$@")
+if [ ${#TAMANHOS[@]} -eq 0 ]; then
+    TAMANHOS=(1000000 10000000)
+fi
+
+INDICES_V04_V05="vacina_nome_trgm_idx vacina_descricao_trgm_idx pessoa_nome_trgm_idx pessoa_cpf_trgm_idx
+vacina_nome_fts_idx vacina_descricao_fts_idx pessoa_nome_fts_idx"
+
+psql_banco() {
+    psql -X -q -v ON_ERROR_STOP=1 -d "$BANCO" "$@"
+}
+
+# Percentis a partir do log por transacao do pgbench (3a coluna: latencia em us)
+latencia() {
+    local consulta=$1 cenario=$2 saida=$3 dir
+    dir=$(mktemp -d)
+    (cd "$dir" && pgbench -n -d "$BANCO" -c "$CLIENTES" -j "$CLIENTES" -T "$DURACAO" -l \
+        -f "$OLDPWD/latencia/$consulta.sql" > /dev/null)
+    cat "$dir"/pgbench_log.* | awk '{ print $3 / 1000 }' | sort -n | awk -v c="$consulta" -v s="$cenario" '
+        { v[NR] = $1; soma += $1 }
+        END {
+            printf "%-22s %-12s n=%-7d media=%8.2f p50=%8.2f p95=%8.2f p99=%8.2f\n", c, s, NR, soma / NR,
+                v[int(NR * 0.50) + 1], v[int(NR * 0.95) + 1], v[int(NR * 0.99) + 1]
+        }' >> "$saida"
+    rm -rf "$dir"
+}
+
+medir() {
+    local cenario=$1 destino=$2
+    psql_banco -f consultas.sql > "$destino/explain-$cenario.txt"
+    for consulta in latencia/*.sql; do
+        latencia "$(basename "$consulta" .sql)" "$cenario" "$destino/latencia.txt"
+    done
+}
+
+for linhas in "${TAMANHOS[@]}"; do
+    destino=resultados/$linhas
+    mkdir -p "$destino"
+    rm -f "$destino/latencia.txt"
+    echo "== $linhas linhas: criando o banco $BANCO"
+    dropdb --if-exists "$BANCO"
+    createdb "$BANCO"
+    for migracao in "$MIGRACOES"/V*.sql; do
+        psql_banco -f "$migracao"
+    done
+    psql_banco -v linhas="$linhas" -f dados.sql
+
+    echo "== $linhas linhas: com os indices"
+    medir com-indices "$destino"
+
+    echo "== $linhas linhas: sem os indices"
+    for indice in $INDICES_V04_V05; do
+        psql_banco -c "DROP INDEX $indice"
+    done
+    medir sem-indices "$destino"
+
+    cat "$destino/latencia.txt"
+done
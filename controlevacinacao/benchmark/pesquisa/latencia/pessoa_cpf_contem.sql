@@ -0,0 +1,4 @@
+\set inicio random(100000, 999999)
+SELECT p.codigo, p.cpf, p.nome, p.status FROM pessoa p
+WHERE p.status = 'ATIVO' AND lower(p.cpf) LIKE '%' || :inicio || '%' ESCAPE '!'
+ORDER BY p.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
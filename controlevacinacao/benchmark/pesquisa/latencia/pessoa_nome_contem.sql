@@ -0,0 +1,4 @@
+\set palavra random(0, 63)
+SELECT p.codigo, p.cpf, p.nome, p.status FROM pessoa p
+WHERE p.status = 'ATIVO' AND lower(p.nome) LIKE '%' || (ARRAY['goncalves', 'teixeira', 'moura', 'campos', 'freitas', 'nunes', 'rocha', 'lima'])[:palavra % 8 + 1] || '%' ESCAPE '!'
+ORDER BY p.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
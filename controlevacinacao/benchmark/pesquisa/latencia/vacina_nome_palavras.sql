@@ -0,0 +1,5 @@
+\set palavra random(0, 63)
+SELECT v.codigo, v.descricao, v.nome, v.status FROM vacina v
+WHERE v.status = 'ATIVO'
+  AND (to_tsvector('portuguese', coalesce(v.nome, '')) @@ plainto_tsquery('portuguese', (ARRAY['maria', 'oliveira', 'santana', 'gomes', 'ramos', 'dias', 'lopes', 'pinto'])[:palavra % 8 + 1])) = true
+ORDER BY v.codigo ASC OFFSET 0 ROWS FETCH FIRST 8 ROWS ONLY;
@@ -0,0 +1,33 @@
+-- Correcao dos CPFs repetidos que impedem a migracao V08 (restricao UNIQUE em
+-- pessoa.cpf). A V08 roda numa transacao: quando ela para, nada foi alterado e o
+-- Flyway nao registra a versao, a aplicacao so sobe depois da correcao.
+--
+-- Procedimento:
+--   1. Pare a aplicacao e faca um backup da tabela pessoa (pg_dump -t pessoa).
+--   2. Rode este script no banco da aplicacao (psql -d controlevacinacao -f
+--      manutencao/cpfs-repetidos.sql). Ele lista as pessoas de cada CPF repetido,
+--      comparando os CPFs so pelos digitos, como a V08 faz.
+--   3. Para cada CPF, decida qual cadastro esta certo. Corrija o CPF dos outros
+--      (UPDATE pessoa SET cpf = '<cpf correto>' WHERE codigo = <codigo>) ou remova
+--      os cadastros que sobram (DELETE FROM pessoa WHERE codigo = <codigo>).
+--   4. Rode o script de novo ate ele nao listar nada e inicie a aplicacao: o
+--      Flyway aplica a V08.
+--
+-- Cadastros identicos (mesmo nome, CPF e status) nao aparecem aqui, a propria V08
+-- mantem so o de menor codigo.
+\set ON_ERROR_STOP on
+
+WITH normalizado AS (
+    SELECT codigo, nome, cpf, status,
+           CASE WHEN cpf ~ '[0-9]' THEN regexp_replace(cpf, '[^0-9]', '', 'g') ELSE btrim(cpf) END AS digitos
+    FROM pessoa
+    WHERE cpf IS NOT NULL
+), distintos AS (
+    SELECT DISTINCT ON (digitos, nome, status) codigo, nome, cpf, status, digitos
+    FROM normalizado
+    ORDER BY digitos, nome, status, codigo
+)
+SELECT digitos AS cpf_normalizado, codigo, nome, cpf AS cpf_gravado, status
+FROM distintos
+WHERE digitos IN (SELECT digitos FROM distintos GROUP BY digitos HAVING count(*) > 1)
+ORDER BY digitos, codigo;
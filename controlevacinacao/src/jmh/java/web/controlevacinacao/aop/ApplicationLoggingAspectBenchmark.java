@@ -0,0 +1,83 @@
+package web.controlevacinacao.aop;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+// Custo do ApplicationLoggingAspect por chamada com debug e trace desligados,
+// como em producao (sem o Spring o log4j2 fica na configuracao padrao, ERROR). O custo do aspecto e a diferenca entre
+// comAspecto e proxySemAspecto: o proxy do Spring AOP existe de qualquer forma
+// nos beans com @Transactional. O criterio e ficar abaixo de 100 ns.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ApplicationLoggingAspectBenchmark {
+
+	@Service
+	public static class ServicoExemplo {
+
+		public String pesquisar(String nome, int pagina) {
+			return nome;
+		}
+
+	}
+
+	private ServicoExemplo direto;
+	private ServicoExemplo proxySemAspecto;
+	private ServicoExemplo comAspecto;
+	private String nome = "vacina";
+	private int pagina = 3;
+
+	@Setup
+	public void preparar() {
+		direto = new ServicoExemplo();
+
+		// Um interceptor que so prossegue, para o proxy ter a mesma cadeia de
+		// chamadas do proxy com o aspecto
+		ProxyFactory semAspecto = new ProxyFactory(new ServicoExemplo());
+		semAspecto.setProxyTargetClass(true);
+		MethodInterceptor prosseguir = invocation -> invocation.proceed();
+		semAspecto.addAdvice(prosseguir);
+		proxySemAspecto = (ServicoExemplo) semAspecto.getProxy();
+
+		AspectJProxyFactory aspecto = new AspectJProxyFactory(new ServicoExemplo());
+		aspecto.setProxyTargetClass(true);
+		aspecto.addAspect(new ApplicationLoggingAspect(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+		comAspecto = aspecto.getProxy();
+	}
+
+	@Benchmark
+	public String direto() {
+		return direto.pesquisar(nome, pagina);
+	}
+
+	@Benchmark
+	public String proxySemAspecto() {
+		return proxySemAspecto.pesquisar(nome, pagina);
+	}
+
+	@Benchmark
+	public String comAspecto() {
+		return comAspecto.pesquisar(nome, pagina);
+	}
+
+}
@@ -0,0 +1,96 @@
+package web.controlevacinacao.formatter;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+// print e parse do BigDecimalFormatter atual (prototipo por locale e caminho
+// rapido para #,##0.00) contra o anterior, que montava o DecimalFormatSymbols e
+// o DecimalFormat a cada chamada.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NumberFormatterBenchmark {
+
+	private static final Locale PT_BR = Locale.of("pt", "BR");
+
+	// O NumberFormatter como era antes do cache, com o pattern do BigDecimalFormatter
+	static final class BigDecimalFormatterAnterior {
+
+		private final Environment env;
+
+		BigDecimalFormatterAnterior(Environment env) {
+			this.env = env;
+		}
+
+		String print(BigDecimal number, Locale locale) {
+			DecimalFormat decimalFormat = new DecimalFormat(env.getProperty("bigdecimal.format", "#,##0.00"),
+					new DecimalFormatSymbols(locale));
+			return decimalFormat.format(number);
+		}
+
+		BigDecimal parse(String text, Locale locale) throws ParseException {
+			DecimalFormat decimalFormat = new DecimalFormat(env.getProperty("bigdecimal.format", "#,##0.00"),
+					new DecimalFormatSymbols(locale));
+			decimalFormat.setParseBigDecimal(true);
+			return (BigDecimal) decimalFormat.parse(text);
+		}
+
+	}
+
+	private BigDecimalFormatter atual;
+	private BigDecimalFormatterAnterior anterior;
+	private BigDecimal valor = new BigDecimal("-1234567.895");
+	private String texto = "-1.234.567,90";
+
+	@Setup
+	public void preparar() throws ReflectiveOperationException {
+		StandardEnvironment env = new StandardEnvironment();
+		atual = new BigDecimalFormatter();
+		Field campoEnv = BigDecimalFormatter.class.getDeclaredField("env");
+		campoEnv.setAccessible(true);
+		campoEnv.set(atual, env);
+		anterior = new BigDecimalFormatterAnterior(env);
+	}
+
+	@Benchmark
+	public String printAtual() {
+		return atual.print(valor, PT_BR);
+	}
+
+	@Benchmark
+	public String printAnterior() {
+		return anterior.print(valor, PT_BR);
+	}
+
+	@Benchmark
+	public BigDecimal parseAtual() throws ParseException {
+		return atual.parse(texto, PT_BR);
+	}
+
+	@Benchmark
+	public BigDecimal parseAnterior() throws ParseException {
+		return anterior.parse(texto, PT_BR);
+	}
+
+}
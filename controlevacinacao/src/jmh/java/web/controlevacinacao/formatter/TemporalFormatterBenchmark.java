@@ -0,0 +1,101 @@
+package web.controlevacinacao.formatter;
+
+import java.lang.reflect.Field;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+// print e parse do LocalDateFormatter atual (DateTimeFormatter compilado uma
+// vez por locale) contra o anterior, que buscava o pattern no Environment e
+// chamava DateTimeFormatter.ofPattern a cada data.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TemporalFormatterBenchmark {
+
+	private static final Locale PT_BR = Locale.of("pt", "BR");
+
+	// O TemporalFormatter como era antes do cache, com o mesmo pattern do
+	// LocalDateFormatter
+	static final class LocalDateFormatterAnterior {
+
+		private final Environment env;
+
+		LocalDateFormatterAnterior(Environment env) {
+			this.env = env;
+		}
+
+		String print(LocalDate temporal, Locale locale) {
+			return getDateTimeFormatter(locale).format(temporal);
+		}
+
+		LocalDate parse(String text, Locale locale) {
+			return LocalDate.parse(text, getDateTimeFormatter(locale));
+		}
+
+		private DateTimeFormatter getDateTimeFormatter(Locale locale) {
+			String padrao = env.getProperty("localdate.format-" + locale, "yyyy-MM-dd");
+			return DateTimeFormatter.ofPattern(padrao);
+		}
+
+	}
+
+	private LocalDateFormatter atual;
+	private LocalDateFormatterAnterior anterior;
+	private LocalDate data = LocalDate.of(2024, 10, 30);
+	private String texto = "30/10/2024";
+
+	@Setup
+	public void preparar() throws ReflectiveOperationException {
+		StandardEnvironment env = new StandardEnvironment();
+		env.getPropertySources().addFirst(new MapPropertySource("benchmark",
+				Map.of("localdate.format-pt_BR", "dd/MM/yyyy")));
+
+		atual = new LocalDateFormatter();
+		Field campoEnv = LocalDateFormatter.class.getDeclaredField("env");
+		campoEnv.setAccessible(true);
+		campoEnv.set(atual, env);
+		anterior = new LocalDateFormatterAnterior(env);
+	}
+
+	@Benchmark
+	public String printAtual() {
+		return atual.print(data, PT_BR);
+	}
+
+	@Benchmark
+	public String printAnterior() {
+		return anterior.print(data, PT_BR);
+	}
+
+	@Benchmark
+	public LocalDate parseAtual() throws ParseException {
+		return atual.parse(texto, PT_BR);
+	}
+
+	@Benchmark
+	public LocalDate parseAnterior() {
+		return anterior.parse(texto, PT_BR);
+	}
+
+}
@@ -0,0 +1,134 @@
+package web.controlevacinacao.pagination;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Os links de uma pagina de pesquisa (URL atual, cinco numeros de pagina e tres
+// colunas ordenaveis) montados pelo PageWrapper atual, que separa a URL uma vez
+// no ModeloUrl, e pelo anterior, que passava cada link pelo
+// UriComponentsBuilder.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PageWrapperBenchmark {
+
+	private static final List<String> COLUNAS = List.of("codigo", "nome", "cpf");
+
+	// As partes do PageWrapper anterior que montam URLs
+	static final class PageWrapperAnterior {
+
+		private final Page<?> pagina;
+		private final UriComponentsBuilder uriBuilder;
+
+		PageWrapperAnterior(Page<?> pagina, HttpServletRequest request) {
+			this.pagina = pagina;
+			StringBuffer requestURL = request.getRequestURL();
+			String queryString = removeEmptyQueryParams(request.getQueryString());
+			String httpURL = requestURL.append(queryString != null ? "?" + queryString : "").toString()
+					.replaceAll("\\+", "%20");
+			uriBuilder = UriComponentsBuilder.fromHttpUrl(httpURL);
+		}
+
+		private String removeEmptyQueryParams(String queryString) {
+			String result = "";
+			if (queryString != null) {
+				if (!queryString.isBlank()) {
+					for (String parameter : queryString.split("&")) {
+						if (parameter.indexOf('=') != parameter.length() - 1) {
+							result += (result.isEmpty() ? "" : "&") + parameter;
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		String urlAtual() {
+			return uriBuilder.build(true).encode().toUriString();
+		}
+
+		String urlParaPagina(int pagina) {
+			return uriBuilder.replaceQueryParam("page", pagina).build(true).encode().toUriString();
+		}
+
+		String urlInvertendoDirecaoOrdem(String propriedade) {
+			UriComponentsBuilder uriBuilderOrder = UriComponentsBuilder
+					.fromUriString(uriBuilder.build(true).encode().toUriString());
+			String valorSort = String.format("%s,%s", propriedade, inverterDirecaoOrdem(propriedade));
+			return uriBuilderOrder.replaceQueryParam("sort", valorSort).build(true).encode().toUriString();
+		}
+
+		private String inverterDirecaoOrdem(String propriedade) {
+			String direcao = "asc";
+			Sort.Order order = (pagina.getSort() != null) ? pagina.getSort().getOrderFor(propriedade) : null;
+			if (order != null) {
+				direcao = Sort.Direction.ASC.equals(order.getDirection()) ? "desc" : "asc";
+			}
+			return direcao;
+		}
+
+	}
+
+	private Page<String> pagina;
+	private String consulta = "codigo=&nome=Jo%C3%A3o+da+Silva&cpf=&sort=nome,asc&page=3&size=10";
+
+	@Setup
+	public void preparar() {
+		pagina = new PageImpl<>(List.of("a", "b", "c"), PageRequest.of(3, 10, Sort.by("nome")), 1000);
+	}
+
+	// Uma requisicao nova em cada chamada, como em cada pesquisa
+	private MockHttpServletRequest requisicao() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/pessoas/pesquisar");
+		request.setQueryString(consulta);
+		return request;
+	}
+
+	@Benchmark
+	public void atual(Blackhole blackhole) {
+		PageWrapper<String> wrapper = new PageWrapper<>(pagina, requisicao());
+		blackhole.consume(wrapper.urlAtual());
+		for (int i = 1; i <= 5; i++) {
+			blackhole.consume(wrapper.urlParaPagina(i));
+		}
+		for (String coluna : COLUNAS) {
+			blackhole.consume(wrapper.urlInvertendoDirecaoOrdem(coluna));
+		}
+	}
+
+	@Benchmark
+	public void anterior(Blackhole blackhole) {
+		PageWrapperAnterior wrapper = new PageWrapperAnterior(pagina, requisicao());
+		blackhole.consume(wrapper.urlAtual());
+		for (int i = 1; i <= 5; i++) {
+			blackhole.consume(wrapper.urlParaPagina(i));
+		}
+		for (String coluna : COLUNAS) {
+			blackhole.consume(wrapper.urlInvertendoDirecaoOrdem(coluna));
+		}
+	}
+
+}
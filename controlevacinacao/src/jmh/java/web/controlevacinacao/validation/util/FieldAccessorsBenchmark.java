@@ -0,0 +1,123 @@
+package web.controlevacinacao.validation.util;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import web.controlevacinacao.validation.IntegerAttributesRelation;
+import web.controlevacinacao.validation.validator.IntegerAttributesRelationValidator;
+
+// Leitura de um atributo pelo FieldAccessor (MethodHandle resolvido uma vez por
+// classe) contra o Field.get com o Field ja guardado e contra o caminho
+// anterior dos validadores, que fazia getDeclaredField e setAccessible a cada
+// chamada. Os dois ultimos comparam o isValid inteiro do validador.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FieldAccessorsBenchmark {
+
+	@IntegerAttributesRelation(attribute1 = "maximo", attribute2 = "minimo", relation = AttributesRelation.GREATEROREQUAL)
+	static class Faixa {
+
+		private Integer maximo = 10;
+		private int minimo = 1;
+
+	}
+
+	// O IntegerAttributesRelationValidator como era antes do FieldAccessors,
+	// so o caminho sem violacao, que e o que o benchmark exercita
+	static final class ValidadorAnterior {
+
+		private final String attribute1 = "maximo";
+		private final String attribute2 = "minimo";
+
+		boolean isValid(Object value) {
+			Field field1, field2;
+			try {
+				field1 = value.getClass().getDeclaredField(attribute1);
+				field2 = value.getClass().getDeclaredField(attribute2);
+			} catch (final Exception ignore) {
+				throw new RuntimeException("It was impossible to get the attributes from it's names");
+			}
+			if (!ReflectUtil.isAssignableTo(field1.getType(), Integer.class) || !ReflectUtil.isAssignableTo(field2.getType(), Integer.class)) {
+				throw new IllegalArgumentException("Attributes should be of type Integer/int");
+			}
+			field1.setAccessible(true);
+			field2.setAccessible(true);
+
+			int value1, value2;
+			try {
+				value1 = field1.getType() == Integer.class ? (Integer) field1.get(value) : (int) field1.get(value);
+				value2 = field2.getType() == Integer.class ? (Integer) field2.get(value) : (int) field2.get(value);
+			} catch (final Exception ignore) {
+				throw new RuntimeException("It was impossible to get the attributes values");
+			}
+			return value1 >= value2;
+		}
+
+	}
+
+	private Faixa faixa = new Faixa();
+	private FieldAccessor accessor;
+	private Field campo;
+	private IntegerAttributesRelationValidator validador;
+	private ValidadorAnterior validadorAnterior;
+
+	@Setup
+	public void preparar() throws ReflectiveOperationException {
+		accessor = FieldAccessors.get(Faixa.class, "maximo");
+		campo = Faixa.class.getDeclaredField("maximo");
+		campo.setAccessible(true);
+
+		validador = new IntegerAttributesRelationValidator();
+		validador.initialize(Faixa.class.getAnnotation(IntegerAttributesRelation.class));
+		validadorAnterior = new ValidadorAnterior();
+	}
+
+	@Benchmark
+	public Object fieldAccessor() {
+		return accessor.get(faixa);
+	}
+
+	@Benchmark
+	public Object fieldAccessorsPorNome() {
+		return FieldAccessors.get(Faixa.class, "maximo").get(faixa);
+	}
+
+	@Benchmark
+	public Object fieldGuardado() throws IllegalAccessException {
+		return campo.get(faixa);
+	}
+
+	@Benchmark
+	public Object fieldAnterior() throws ReflectiveOperationException {
+		Field field = faixa.getClass().getDeclaredField("maximo");
+		field.setAccessible(true);
+		return field.get(faixa);
+	}
+
+	// O contexto so e usado quando ha violacao, e a Faixa e sempre valida
+	@Benchmark
+	public boolean validadorAtual() {
+		return validador.isValid(faixa, null);
+	}
+
+	@Benchmark
+	public boolean validadorAnterior() {
+		return validadorAnterior.isValid(faixa);
+	}
+
+}
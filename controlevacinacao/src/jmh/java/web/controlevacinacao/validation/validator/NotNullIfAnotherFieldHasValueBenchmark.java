@@ -0,0 +1,137 @@
+package web.controlevacinacao.validation.validator;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import web.controlevacinacao.validation.NotNullIfAnotherFieldHasValue;
+
+// Validacao em lote: o mesmo validador aplicado a uma lista de objetos, como
+// numa importacao. Compara o validador atual (getters via MethodHandle e
+// fieldValue convertido uma vez por classe) com o anterior, que a cada objeto
+// procurava o getter, chamava por reflexao e convertia os dois valores para
+// String, como o BeanUtils.getProperty fazia.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NotNullIfAnotherFieldHasValueBenchmark {
+
+	public enum Situacao {
+		ATIVO, INATIVO
+	}
+
+	@NotNullIfAnotherFieldHasValue(fieldName = "situacao", fieldValue = "INATIVO", dependFieldName = "motivo")
+	public static class Cadastro {
+
+		private Situacao situacao;
+		private String motivo;
+
+		Cadastro(Situacao situacao, String motivo) {
+			this.situacao = situacao;
+			this.motivo = motivo;
+		}
+
+		public Situacao getSituacao() {
+			return situacao;
+		}
+
+		public String getMotivo() {
+			return motivo;
+		}
+
+	}
+
+	// O validador anterior, com a leitura do BeanUtils.getProperty reproduzida:
+	// descritor da propriedade, Method.invoke e conversao para String
+	static final class ValidadorAnterior {
+
+		private final String fieldName = "situacao";
+		private final String expectedFieldValue = "INATIVO";
+		private final String dependFieldName = "motivo";
+
+		boolean isValid(Object value) {
+			try {
+				final String fieldValue = getProperty(value, fieldName);
+				final String dependFieldValue = getProperty(value, dependFieldName);
+				if (expectedFieldValue.equals(fieldValue) && dependFieldValue == null) {
+					return false;
+				}
+			} catch (final Exception ignore) {
+				// we can ignore
+			}
+			return true;
+		}
+
+		private static String getProperty(Object bean, String name) throws ReflectiveOperationException {
+			PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(bean.getClass(), name);
+			Method getter = descriptor.getReadMethod();
+			Object value = getter.invoke(bean);
+			return value == null ? null : value.toString();
+		}
+
+	}
+
+	@Param({ "1000", "100000" })
+	private int quantidade;
+
+	private List<Cadastro> cadastros;
+	private NotNullIfAnotherFieldHasValueValidator validador;
+	private ValidadorAnterior validadorAnterior;
+
+	@Setup
+	public void preparar() {
+		// Todos os cadastros sao validos, assim o contexto de validacao, usado so
+		// para montar a violacao, nao entra na medida
+		Random random = new Random(42);
+		cadastros = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			cadastros.add(random.nextBoolean() ? new Cadastro(Situacao.ATIVO, null)
+					: new Cadastro(Situacao.INATIVO, "Mudou de cidade"));
+		}
+		validador = new NotNullIfAnotherFieldHasValueValidator();
+		validador.initialize(Cadastro.class.getAnnotation(NotNullIfAnotherFieldHasValue.class));
+		validadorAnterior = new ValidadorAnterior();
+	}
+
+	@Benchmark
+	public int validadorAtual() {
+		int validos = 0;
+		for (Cadastro cadastro : cadastros) {
+			if (validador.isValid(cadastro, null)) {
+				validos++;
+			}
+		}
+		return validos;
+	}
+
+	@Benchmark
+	public int validadorAnterior() {
+		int validos = 0;
+		for (Cadastro cadastro : cadastros) {
+			if (validadorAnterior.isValid(cadastro)) {
+				validos++;
+			}
+		}
+		return validos;
+	}
+
+}
@@ -0,0 +1,130 @@
+package web.controlevacinacao.validation.validator;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.validation.ConstraintValidatorContext;
+
+// O ValidUsernameValidator de uma passada contra o anterior, que percorria o
+// nome uma vez por regra, procurava os caracteres especiais numa List<String>
+// e montava a mensagem concatenando Strings. Um nome valido e um que falha em
+// varias regras. Com @Threads(4) a mesma instancia e usada por varias threads,
+// como no Hibernate Validator.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class ValidUsernameValidatorBenchmark {
+
+	// O validador anterior, sem os logs de debug
+	static final class ValidadorAnterior {
+
+		private static final List<String> LISTA_CARACTERES_ESPECIAIS = List.of("!", "@", "#", "$", "%", "&", "*",
+				".", ",", "~", "^", "/", "\\", "+", ":", ";", "=", "'", "`", "[", "]", "(", ")", "{", "}", "<", ">",
+				"-", "_");
+		private static final List<String> LISTA_NOMES_USUARIO_PROIBIDOS = List.of("root", "eu", "admin");
+
+		private String mensagemFinal = "";
+
+		boolean isValid(String nomeUsuario, ConstraintValidatorContext constraintValidatorContext) {
+			mensagemFinal = "";
+			boolean valido = peloMenosUm(nomeUsuario, 0, "Ao menos uma letra");
+			valido &= peloMenosUm(nomeUsuario, 1, "Ao menos um dígito");
+			valido &= peloMenosUm(nomeUsuario, 2, "Ao menos um caractere especial");
+			valido &= nomeUsuario.length() > 5 || acrescentar("Tamanho mínimo de 5 caracteres");
+			valido &= nomeUsuario.length() < 21 || acrescentar("Tamanho máximo de 20 caracteres");
+			valido &= peloMenosUm(nomeUsuario, 3, "Ao menos um caractere maiúsculo");
+			valido &= peloMenosUm(nomeUsuario, 4, "Ao menos um caractere minúsculo");
+			valido &= !LISTA_NOMES_USUARIO_PROIBIDOS.contains(nomeUsuario.toLowerCase())
+					|| acrescentar("Não pode ser um nome proibido");
+			if (!valido) {
+				constraintValidatorContext.buildConstraintViolationWithTemplate(mensagemFinal)
+				.addConstraintViolation()
+				.disableDefaultConstraintViolation();
+			}
+			return valido;
+		}
+
+		private boolean peloMenosUm(String nomeUsuario, int regra, String mensagem) {
+			for (int pos = 0; pos < nomeUsuario.length(); pos++) {
+				char c = nomeUsuario.charAt(pos);
+				boolean atende = switch (regra) {
+				case 0 -> Character.isAlphabetic(c);
+				case 1 -> Character.isDigit(c);
+				case 2 -> LISTA_CARACTERES_ESPECIAIS.contains(String.valueOf(c));
+				case 3 -> Character.isUpperCase(c);
+				default -> Character.isLowerCase(c);
+				};
+				if (atende) {
+					return true;
+				}
+			}
+			return acrescentar(mensagem);
+		}
+
+		private boolean acrescentar(String mensagem) {
+			if (!mensagemFinal.isBlank()) {
+				mensagemFinal += "; ";
+			}
+			mensagemFinal += mensagem;
+			return false;
+		}
+
+	}
+
+	@Param({ "Usuario_2024", "admin" })
+	private String nomeUsuario;
+
+	private ValidUsernameValidator atual;
+	private ValidadorAnterior anterior;
+	private ConstraintValidatorContext contexto;
+
+	@Setup
+	public void preparar() {
+		atual = new ValidUsernameValidator();
+		anterior = new ValidadorAnterior();
+		contexto = (ConstraintValidatorContext) semEfeito(ConstraintValidatorContext.class);
+	}
+
+	// Contexto que aceita a montagem da violacao sem guardar nada. Cada tipo de
+	// builder tem um unico proxy, para nao medir a criacao deles.
+	private static final Map<Class<?>, Object> PROXIES = new ConcurrentHashMap<>();
+
+	private static Object semEfeito(Class<?> tipo) {
+		return PROXIES.computeIfAbsent(tipo, t -> Proxy.newProxyInstance(
+				ValidUsernameValidatorBenchmark.class.getClassLoader(), new Class<?>[] { t }, (proxy, metodo, args) -> {
+					Class<?> retorno = metodo.getReturnType();
+					return retorno.isInterface() ? semEfeito(retorno) : null;
+				}));
+	}
+
+	@Benchmark
+	public boolean atual() {
+		return atual.isValid(nomeUsuario, contexto);
+	}
+
+	@Benchmark
+	public boolean anterior() {
+		return anterior.isValid(nomeUsuario, contexto);
+	}
+
+}
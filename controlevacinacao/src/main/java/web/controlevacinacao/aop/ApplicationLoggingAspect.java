@@ -1,25 +1,42 @@
 package web.controlevacinacao.aop;
 
-import java.util.HashMap;
+import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
-import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.CodeSignature;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.servlet.ModelAndView;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import web.controlevacinacao.log.LogPayload;
+
 @Aspect
 @Component
 public class ApplicationLoggingAspect {
 
 	private static final Logger logger = LoggerFactory.getLogger(ApplicationLoggingAspect.class);
 
+	private static final String METRICA = "aplicacao.metodos";
+
+	private final MeterRegistry meterRegistry;
+	// Tudo o que nao muda entre as chamadas de um metodo e calculado uma vez so
+	private final Map<Method, MetadadosMetodo> metadados = new ConcurrentHashMap<>();
+
+	public ApplicationLoggingAspect(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
 	@Pointcut("within(@org.springframework.stereotype.Controller *)")
 	public void controllersPointcut() {
 	}
@@ -65,16 +82,18 @@ public class ApplicationLoggingAspect {
 //			}
 //		}
 
-		logMethodName(joinPoint);
-		logParametersReceived(joinPoint);
-		Object result = joinPoint.proceed();
-		String nomeDaView = getViewName(result);
+		MetadadosMetodo metodo = metadados(joinPoint, "controller");
+		logEntrada(joinPoint, metodo);
+		Object result = medir(joinPoint, metodo);
 
-        if (nomeDaView != null) {
-			if (nomeDaView.startsWith("redirect:")) {
-				logger.trace("Redirecionando para a URL: {}", nomeDaView.substring(9));
-			} else {
-				logger.trace("Encaminhando para a view: {}", nomeDaView);
+		if (logger.isTraceEnabled()) {
+			String nomeDaView = getViewName(result);
+			if (nomeDaView != null) {
+				if (nomeDaView.startsWith("redirect:")) {
+					logger.trace("Redirecionando para a URL: {}", nomeDaView.substring(9));
+				} else {
+					logger.trace("Encaminhando para a view: {}", nomeDaView);
+				}
 			}
 		}
 
@@ -83,49 +102,60 @@ public class ApplicationLoggingAspect {
 
 	@Around("servicesPointcut()")
 	public Object logAroundService(ProceedingJoinPoint joinPoint) throws Throwable {
-		logMethodName(joinPoint);
-		logParametersReceived(joinPoint);
-		Object result = joinPoint.proceed();
-		// Don't log the PDF in the result
-		if (result instanceof byte[]) {
-			logger.trace("Retornando: byte[] do relatório PDF");
-		} else {
-			logger.trace("Retornando: {}", result);
+		MetadadosMetodo metodo = metadados(joinPoint, "service");
+		logEntrada(joinPoint, metodo);
+		Object result = medir(joinPoint, metodo);
+		if (logger.isTraceEnabled()) {
+			// Don't log the PDF in the result
+			if (result instanceof byte[]) {
+				logger.trace("Retornando: byte[] do relatório PDF");
+			} else {
+				logger.trace("Retornando: {}", LogPayload.resumo(result));
+			}
 		}
 		return result;
 	}
 
-	private Map<String, Object> getParameters(JoinPoint joinPoint) {
-		CodeSignature signature = (CodeSignature) joinPoint.getSignature();
-		HashMap<String, Object> map = new HashMap<>();
-		String[] parameterNames = signature.getParameterNames();
-		for (int i = 0; i < parameterNames.length; i++) {
-			map.put(parameterNames[i], joinPoint.getArgs()[i]);
+	// O tempo e registrado mesmo quando o metodo lanca excecao, em um timer
+	// separado para os erros nao distorcerem a latencia das chamadas normais
+	private Object medir(ProceedingJoinPoint joinPoint, MetadadosMetodo metodo) throws Throwable {
+		long inicio = System.nanoTime();
+		boolean sucesso = false;
+		try {
+			Object result = joinPoint.proceed();
+			sucesso = true;
+			return result;
+		} finally {
+			long duracao = System.nanoTime() - inicio;
+			(sucesso ? metodo.timerSucesso : metodo.timerErro).record(duracao, TimeUnit.NANOSECONDS);
 		}
-		return map;
 	}
-	
-	private void logMethodName(ProceedingJoinPoint joinPoint) {
-		String nomeCompletoClasse = joinPoint.getSignature().getDeclaringTypeName();
-		int posicaoPonto = nomeCompletoClasse.lastIndexOf(".");
-		String nomeClasseApenas = (posicaoPonto != -1) ? nomeCompletoClasse.substring(posicaoPonto + 1) : nomeCompletoClasse;
-		logger.trace("Entrou no método: {}.{}", nomeClasseApenas, joinPoint.getSignature().getName());
+
+	private MetadadosMetodo metadados(ProceedingJoinPoint joinPoint, String camada) {
+		MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+		Method method = signature.getMethod();
+		MetadadosMetodo metodo = metadados.get(method);
+		if (metodo == null) {
+			metodo = metadados.computeIfAbsent(method, m -> new MetadadosMetodo(signature, camada, meterRegistry));
+		}
+		return metodo;
 	}
-	
-	private void logParametersReceived(ProceedingJoinPoint joinPoint) {
-		Map<String, Object> parametros = getParameters(joinPoint);
-		if (!parametros.isEmpty()) {
+
+	// Os argumentos so sao acessados (e o toString das entidades so e chamado)
+	// se o nivel de log for usar o resultado
+	private void logEntrada(ProceedingJoinPoint joinPoint, MetadadosMetodo metodo) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Entrou no método: {}.{}", metodo.nomeClasse, metodo.nomeMetodo);
+		}
+		if (metodo.parametrosLogados.length > 0 && logger.isDebugEnabled()) {
+			Object[] args = joinPoint.getArgs();
 			logger.debug("Parâmetros recebidos:");
-			for (String nomeParametro : parametros.keySet()) {
-				// Don't log the model and the BindingResult
-				if (!nomeParametro.equals("model") &&
-				    !nomeParametro.equals("org.springframework.validation.BindingResult.model")) {
-					logger.debug("\t{}: {}", nomeParametro, parametros.get(nomeParametro));
-				}
+			for (int indice : metodo.parametrosLogados) {
+				logger.debug("\t{}: {}", metodo.nomesParametros[indice], LogPayload.resumo(args[indice]));
 			}
 		}
 	}
-	
+
 	private String getViewName(Object result) {
 		String nomeDaView = null;
 		if (result instanceof ModelAndView) {
@@ -139,5 +169,46 @@ public class ApplicationLoggingAspect {
 		return nomeDaView;
 	}
 
-}
+	private static final class MetadadosMetodo {
+
+		private final String nomeClasse;
+		private final String nomeMetodo;
+		private final String[] nomesParametros;
+		// Indices dos parametros que aparecem no log
+		private final int[] parametrosLogados;
+		private final Timer timerSucesso;
+		private final Timer timerErro;
+
+		private MetadadosMetodo(MethodSignature signature, String camada, MeterRegistry meterRegistry) {
+			this.nomeClasse = signature.getDeclaringType().getSimpleName();
+			this.nomeMetodo = signature.getName();
+			String[] nomes = signature.getParameterNames();
+			this.nomesParametros = nomes != null ? nomes : new String[0];
+			Class<?>[] tipos = signature.getParameterTypes();
+			int[] indices = new int[nomesParametros.length];
+			int quantidade = 0;
+			for (int i = 0; i < nomesParametros.length; i++) {
+				// Don't log the model and the BindingResult
+				if (!nomesParametros[i].equals("model") && !BindingResult.class.isAssignableFrom(tipos[i])) {
+					indices[quantidade++] = i;
+				}
+			}
+			this.parametrosLogados = Arrays.copyOf(indices, quantidade);
+			this.timerSucesso = timer(meterRegistry, camada, "sucesso");
+			this.timerErro = timer(meterRegistry, camada, "erro");
+		}
+
+		private Timer timer(MeterRegistry meterRegistry, String camada, String resultado) {
+			return Timer.builder(METRICA)
+					.description("Tempo de execução dos métodos dos controllers e services")
+					.tag("camada", camada)
+					.tag("classe", nomeClasse)
+					.tag("metodo", nomeMetodo)
+					.tag("resultado", resultado)
+					.publishPercentileHistogram()
+					.register(meterRegistry);
+		}
 
+	}
+
+}
@@ -0,0 +1,62 @@
+package web.controlevacinacao.cache;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
+
+// Guarda as paginas das pesquisas por alguns segundos, o suficiente para os
+// cliques de paginacao e ordenacao que repetem a mesma pesquisa. A geracao dos
+// dados da entidade faz parte da chave, entao depois de uma alteracao as
+// paginas antigas nunca mais sao encontradas e saem pelo tempo ou pelo tamanho.
+@Component
+public class CacheResultadosPesquisa {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheResultadosPesquisa.class);
+
+    private final Cache<ChaveResultado, Page<?>> cache;
+    private final GeracaoDados geracaoDados;
+
+    public CacheResultadosPesquisa(GeracaoDados geracaoDados, MeterRegistry meterRegistry,
+            @Value("${cache.pesquisas.tamanho-maximo:500}") long tamanhoMaximo,
+            @Value("${cache.pesquisas.tempo-vida:30s}") Duration tempoVida) {
+        this.geracaoDados = geracaoDados;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(tempoVida)
+                .recordStats()
+                .build();
+        // Metricas cache.gets{result=hit|miss}, cache.evictions... com a tag cache=pesquisas
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pesquisas");
+    }
+
+    // O filtro deve vir normalizado: dois filtros que geram a mesma consulta
+    // precisam gerar o mesmo texto.
+    @SuppressWarnings("unchecked")
+    public <T> Page<T> obter(Class<T> entidade, String filtro, Pageable pageable, CursorPaginacao cursor,
+            Supplier<Page<T>> pesquisa) {
+        ChaveResultado chave = new ChaveResultado(entidade, geracaoDados.atual(entidade), filtro,
+                pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString(), cursor.toString());
+        return (Page<T>) cache.get(chave, c -> {
+            logger.debug("Pesquisa não encontrada no cache: {}", c);
+            return pesquisa.get();
+        });
+    }
+
+    private record ChaveResultado(Class<?> entidade, long geracao, String filtro, int pagina, int tamanho,
+            String ordem, String cursor) {
+    }
+
+}
@@ -0,0 +1,60 @@
+package web.controlevacinacao.cache;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.typesafe.config.ConfigFactory;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+
+// O CacheManager do JCache usado pelo cache de segundo nivel e criado aqui e
+// entregue ao Hibernate, para que as regioes sejam medidas direto pelo JCache:
+// metricas cache.gets{result=hit|miss}, cache.puts, cache.removals... com a tag
+// cache=<regiao>. Elas vem das estatisticas do Caffeine (monitoring.statistics
+// no application.conf) e nao dependem do hibernate.generate_statistics, que o
+// perfil prod desliga.
+@Configuration
+public class ConfiguracaoCacheSegundoNivel {
+
+    private static final String CONFIGURACAO_REGIOES = "caffeine.jcache";
+
+    @Bean
+    public CacheManager cacheManagerSegundoNivel() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelHibernate(CacheManager cacheManagerSegundoNivel) {
+        return propriedades -> propriedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+    }
+
+    // As regioes de consulta com nome proprio so sao criadas pelo Hibernate no
+    // primeiro uso. As configuradas no application.conf sao criadas aqui (com a
+    // mesma configuracao que o Hibernate obteria) para ja terem as metricas.
+    @Bean
+    public MeterBinder metricasCacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+        return registry -> {
+            Set<String> regioes = new TreeSet<>(ConfigFactory.load().getObject(CONFIGURACAO_REGIOES).keySet());
+            regioes.remove("default");
+            cacheManagerSegundoNivel.getCacheNames().forEach(regioes::add);
+            for (String regiao : regioes) {
+                Cache<Object, Object> cache = cacheManagerSegundoNivel.getCache(regiao);
+                if (cache != null) {
+                    JCacheMetrics.monitor(registry, cache);
+                }
+            }
+        };
+    }
+
+}
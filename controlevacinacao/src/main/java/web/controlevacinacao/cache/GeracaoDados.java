@@ -0,0 +1,52 @@
+package web.controlevacinacao.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Contador de alteracoes por entidade. Tudo o que e guardado a partir dos dados
+// de uma entidade leva a geracao atual junto, entao quando os servicos avancam
+// a geracao o que foi guardado antes deixa de ser usado.
+@Component
+public class GeracaoDados {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeracaoDados.class);
+
+    private final Map<Class<?>, AtomicLong> geracoes = new ConcurrentHashMap<>();
+
+    public long atual(Class<?> entidade) {
+        return contador(entidade).get();
+    }
+
+    // Dentro de uma transacao a geracao so avanca depois do commit, senao uma
+    // leitura feita entre o avanco e o commit guardaria os dados antigos com a
+    // geracao nova.
+    public void avancar(Class<?> entidade) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementar(entidade);
+                }
+            });
+        } else {
+            incrementar(entidade);
+        }
+    }
+
+    private void incrementar(Class<?> entidade) {
+        long geracao = contador(entidade).incrementAndGet();
+        logger.debug("Geração dos dados de {} avançou para {}", entidade.getSimpleName(), geracao);
+    }
+
+    private AtomicLong contador(Class<?> entidade) {
+        return geracoes.computeIfAbsent(entidade, classe -> new AtomicLong());
+    }
+
+}
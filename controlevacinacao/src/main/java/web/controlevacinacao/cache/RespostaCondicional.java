@@ -0,0 +1,32 @@
+package web.controlevacinacao.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+// GET condicional das paginas montadas a partir dos dados de uma entidade. O
+// ETag e a versao dos dados (geracao da entidade) e nao o HTML, entao ele e
+// conferido antes de qualquer consulta: se o navegador ja tem a resposta desta
+// versao recebe um 304. A geracao volta a zero quando a aplicacao reinicia, por
+// isso o ETag leva tambem o momento da inicializacao (um deploy novo pode ter
+// templates diferentes).
+@Component
+public class RespostaCondicional {
+
+    private final String inicializacao = Long.toString(System.currentTimeMillis(), 36);
+
+    // A variante separa as respostas diferentes da mesma URL (pagina inteira ou
+    // fragmento htmx). Quando devolve true a resposta 304 ja esta pronta e o
+    // controller deve retornar null.
+    public boolean naoModificada(ServletWebRequest webRequest, long geracao, String variante) {
+        String etag = "W/\"" + inicializacao + "-" + geracao + "-" + variante + "-"
+                + webRequest.getLocale().toLanguageTag() + "\"";
+        if (webRequest.getResponse() != null) {
+            // O navegador guarda a resposta, mas sempre confirma com o servidor
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            webRequest.getResponse().setHeader(HttpHeaders.VARY, "HX-Request");
+        }
+        return webRequest.checkNotModified(etag);
+    }
+
+}
@@ -0,0 +1,68 @@
+package web.controlevacinacao.concorrencia;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+// Coloca o DataSourceLimitado na frente do pool do Hikari. Ligado junto com as
+// threads virtuais (spring.threads.virtual.enabled), quando o numero de
+// requisicoes simultaneas deixa de ser limitado pelas threads do Tomcat.
+@Configuration
+@ConditionalOnProperty(name = "banco.concorrencia.habilitado", havingValue = "true")
+public class ConfiguracaoConcorrenciaBanco {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfiguracaoConcorrenciaBanco.class);
+
+    // static: o BeanPostProcessor e criado antes dos outros beans, sem
+    // instanciar a configuracao
+    @Bean
+    public static BeanPostProcessor limitadorDataSource(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof DataSourceLimitado) {
+                    return bean;
+                }
+                // Por padrao o mesmo tamanho do pool: quem passa pelo semaforo
+                // sempre encontra uma conexao livre no Hikari
+                int maximo = environment.getProperty("banco.concorrencia.maximo", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                Duration esperaMaxima = environment.getProperty("banco.concorrencia.espera-maxima", Duration.class,
+                        Duration.ofSeconds(30));
+                logger.info("Conexões com o banco limitadas a {} simultâneas no DataSource {} (espera máxima {})",
+                        maximo, beanName, esperaMaxima);
+                return new DataSourceLimitado(dataSource, maximo, esperaMaxima);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder metricasConcorrenciaBanco(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof DataSourceLimitado limitado)) {
+                return;
+            }
+            Gauge.builder("banco.concorrencia.maximo", limitado, DataSourceLimitado::getMaximo)
+                    .description("Conexoes com o banco que podem estar em uso ao mesmo tempo")
+                    .register(registry);
+            Gauge.builder("banco.concorrencia.disponiveis", limitado, DataSourceLimitado::getDisponiveis)
+                    .description("Permissoes livres do limitador de conexoes")
+                    .register(registry);
+            Gauge.builder("banco.concorrencia.aguardando", limitado, DataSourceLimitado::getAguardando)
+                    .description("Threads esperando uma permissao para pegar uma conexao")
+                    .register(registry);
+        };
+    }
+
+}
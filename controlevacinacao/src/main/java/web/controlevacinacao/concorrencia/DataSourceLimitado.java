@@ -0,0 +1,116 @@
+package web.controlevacinacao.concorrencia;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Limita quantas conexoes podem estar em uso ao mesmo tempo. Cada getConnection
+// espera por uma permissao do semaforo e a devolve quando a conexao e fechada.
+// Com threads virtuais milhares de requisicoes podem pedir uma conexao juntas:
+// elas esperam aqui, numa fila justa (FIFO) e barata de estacionar, e o pool do
+// Hikari so recebe os pedidos que consegue atender na hora.
+public class DataSourceLimitado extends DelegatingDataSource {
+
+    private final Semaphore permissoes;
+    private final int maximo;
+    private final long esperaMaximaNanos;
+
+    public DataSourceLimitado(DataSource dataSource, int maximo, Duration esperaMaxima) {
+        super(dataSource);
+        this.permissoes = new Semaphore(maximo, true);
+        this.maximo = maximo;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return limitada(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return limitada(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    public int getDisponiveis() {
+        return permissoes.availablePermits();
+    }
+
+    public int getAguardando() {
+        return permissoes.getQueueLength();
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permissoes.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("Nenhuma conexão com o banco ficou livre em "
+                        + Duration.ofNanos(esperaMaximaNanos).toMillis() + " ms (" + permissoes.getQueueLength()
+                        + " aguardando)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrompido enquanto aguardava uma conexão com o banco", e);
+        }
+    }
+
+    // A permissao volta no primeiro close, os seguintes so chegam na conexao
+    // (que os ignora, como manda o contrato de Connection)
+    private Connection limitada(Connection conexao) {
+        AtomicBoolean devolvida = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, metodo, argumentos) -> {
+                    String nome = metodo.getName();
+                    if (nome.equals("close")) {
+                        try {
+                            conexao.close();
+                        } finally {
+                            if (devolvida.compareAndSet(false, true)) {
+                                permissoes.release();
+                            }
+                        }
+                        return null;
+                    }
+                    if (nome.equals("equals")) {
+                        return proxy == argumentos[0];
+                    }
+                    if (nome.equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (nome.equals("toString")) {
+                        return "Limitada[" + conexao + "]";
+                    }
+                    try {
+                        return metodo.invoke(conexao, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+}
@@ -1,13 +1,27 @@
 package web.controlevacinacao.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -15,6 +29,10 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.util.unit.DataSize;
 import io.github.wimdeblauwe.htmx.spring.boot.mvc.HtmxLocation;
 import io.github.wimdeblauwe.htmx.spring.boot.mvc.HtmxResponse;
 import io.github.wimdeblauwe.htmx.spring.boot.mvc.HxLocation;
@@ -22,14 +40,23 @@ import io.github.wimdeblauwe.htmx.spring.boot.mvc.HxRequest;
 import io.github.wimdeblauwe.htmx.spring.boot.mvc.HxTriggerAfterSwap;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import web.controlevacinacao.cache.RespostaCondicional;
+import web.controlevacinacao.exportacao.FormatoExportacao;
+import web.controlevacinacao.exportacao.TempoLimiteExportacao;
 import web.controlevacinacao.filter.PessoaFilter;
+import web.controlevacinacao.fragmento.FragmentoEstatico;
+import web.controlevacinacao.importacao.ConfiguracaoImportacao;
+import web.controlevacinacao.log.LogPayload;
 import web.controlevacinacao.model.Pessoa;
 import web.controlevacinacao.model.Status;
 import web.controlevacinacao.notificacao.NotificacaoSweetAlert2;
 import web.controlevacinacao.notificacao.TipoNotificaoSweetAlert2;
 import web.controlevacinacao.pagination.PageWrapper;
 import web.controlevacinacao.repository.PessoaRepository;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
+import web.controlevacinacao.service.ImportacaoPessoaService;
 import web.controlevacinacao.service.PessoaService;
+import web.controlevacinacao.unicidade.CpfRepetidoException;
 
 
 
@@ -38,37 +65,72 @@ import web.controlevacinacao.service.PessoaService;
 public class PessoaController {
 
     private static final Logger logger = LoggerFactory.getLogger(PessoaController.class);
+    private static final Logger logPayload = LogPayload.logger(PessoaController.class);
+
+    @Value("${listagem.tamanho-bloco:50}")
+    private int tamanhoBlocoListagem;
+    @Value("${importacao.tamanho-maximo:10GB}")
+    private DataSize tamanhoMaximoImportacao;
 
     private PessoaRepository pessoaRepository;
     private PessoaService pessoaService;
+    private ImportacaoPessoaService importacaoPessoaService;
+    private RespostaCondicional respostaCondicional;
 
-    public PessoaController(PessoaRepository pessoaRepository, PessoaService pessoaService) {
+    public PessoaController(PessoaRepository pessoaRepository, PessoaService pessoaService,
+            ImportacaoPessoaService importacaoPessoaService, RespostaCondicional respostaCondicional) {
         this.pessoaRepository = pessoaRepository;
         this.pessoaService = pessoaService;
+        this.importacaoPessoaService = importacaoPessoaService;
+        this.respostaCondicional = respostaCondicional;
     }
 
+    // A listagem e carregada em blocos: a pagina traz o primeiro e a ultima
+    // linha de cada bloco pede o seguinte ao aparecer na tela (rolagem infinita).
     @GetMapping("/todas")
-    public String mostrarTodasPessoas(Model model) {
-        List<Pessoa> pessoas = pessoaRepository.findAll();
-        logger.info("Pessoas buscadas: {}", pessoas);
-        model.addAttribute("pessoas", pessoas);
+    public String mostrarTodasPessoas(CursorPaginacao cursor, Model model) {
+        buscarBloco(cursor, model);
         return "pessoas/todas";
     }
 
+    @HxRequest
+    @GetMapping("/todas")
+    public String mostrarBlocoPessoasHTMX(CursorPaginacao cursor, Model model) {
+        buscarBloco(cursor, model);
+        return "pessoas/todas :: linhas";
+    }
+
+    private void buscarBloco(CursorPaginacao cursor, Model model) {
+        Pageable pageable = PageRequest.of(0, tamanhoBlocoListagem, Sort.by(Sort.Direction.ASC, "codigo"));
+        Page<Pessoa> bloco = pessoaRepository.listar(pageable, cursor);
+        logger.info("Bloco de pessoas buscado com {} registros", bloco.getNumberOfElements());
+        List<Pessoa> pessoas = bloco.getContent();
+        model.addAttribute("pessoas", pessoas);
+        if (bloco.hasNext()) {
+            model.addAttribute("proximoCodigo", pessoas.get(pessoas.size() - 1).getCodigo());
+        }
+    }
+
     @GetMapping("/cadastrar")
     public String abrirPaginaCadastro(Pessoa pessoa) {
         return "pessoas/cadastro";
     }
 
     @HxRequest
+    @FragmentoEstatico
     @GetMapping("/cadastrar")
     public String abrirCadastroPessoaHTMX(Pessoa pessoa) {
         return "pessoas/cadastro :: formulario";
     }
 
     @PostMapping("/cadastrar")
-    public String cadastrar(Pessoa pessoa) {
-        pessoaService.salvar(pessoa);
+    public String cadastrar(Pessoa pessoa, BindingResult resultado) {
+        try {
+            pessoaService.salvar(pessoa);
+        } catch (CpfRepetidoException | DataIntegrityViolationException e) {
+            pessoa.setCodigo(null);
+            return rejeitarCpfRepetido(resultado, e, "pessoas/cadastro");
+        }
         return "redirect:/pessoas/sucesso";
     }
 
@@ -90,7 +152,13 @@ public class PessoaController {
             }
             return "pessoas/cadastro :: formulario";
         } else {
-            pessoaService.salvar(pessoa);
+            try {
+                pessoaService.salvar(pessoa);
+            } catch (CpfRepetidoException | DataIntegrityViolationException e) {
+                // O codigo reservado na tentativa nao foi gravado
+                pessoa.setCodigo(null);
+                return rejeitarCpfRepetido(resultado, e, "pessoas/cadastro :: formulario");
+            }
             HtmxLocation hl = new HtmxLocation("/pessoas/sucesso");
             hl.setTarget("#main");
             hl.setSwap("outerHTML");
@@ -107,23 +175,104 @@ public class PessoaController {
         return "pessoas/cadastro :: formulario";
     }
 
+    @GetMapping("/importar")
+    public String abrirPaginaImportacao() {
+        return "pessoas/importar";
+    }
+
+    @HxRequest
+    @FragmentoEstatico
+    @GetMapping("/importar")
+    public String abrirPaginaImportacaoHTMX() {
+        return "pessoas/importar :: formulario";
+    }
+
+    @PostMapping(ConfiguracaoImportacao.CAMINHO_IMPORTACAO_PESSOAS)
+    public String importar(HttpServletRequest request, Model model) throws IOException {
+        importarArquivo(request, model);
+        return "pessoas/importar";
+    }
+
+    @HxRequest
+    @PostMapping(ConfiguracaoImportacao.CAMINHO_IMPORTACAO_PESSOAS)
+    public String importarHTMX(HttpServletRequest request, Model model) throws IOException {
+        importarArquivo(request, model);
+        return "pessoas/importar :: formulario";
+    }
+
+    // O MultipartResolver nao trata este caminho (ConfiguracaoImportacao): as
+    // partes do envio sao percorridas direto no corpo da requisicao e o arquivo
+    // vai para a importacao conforme chega, sem passar pelo disco temporario. O
+    // limite de tamanho vale so para este envio.
+    private void importarArquivo(HttpServletRequest request, Model model) throws IOException {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            model.addAttribute("erroImportacao", "Envie o arquivo CSV pelo formulário de importação");
+            return;
+        }
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(tamanhoMaximoImportacao.toBytes());
+        upload.setFileSizeMax(tamanhoMaximoImportacao.toBytes());
+        try {
+            FileItemInputIterator partes = upload.getItemIterator(request);
+            while (partes.hasNext()) {
+                FileItemInput parte = partes.next();
+                if (!parte.isFormField() && "arquivo".equals(parte.getFieldName())) {
+                    logger.info("Importando pessoas do arquivo {}", parte.getName());
+                    try (InputStream entrada = parte.getInputStream()) {
+                        model.addAttribute("resultado", importacaoPessoaService.importar(entrada));
+                    }
+                    return;
+                }
+            }
+            model.addAttribute("erroImportacao", "Selecione o arquivo CSV a ser importado");
+        } catch (FileUploadSizeException e) {
+            // Tamanho informado no cabecalho acima do limite, nada foi lido
+            logger.info("Importação recusada: {}", e.getMessage());
+            model.addAttribute("erroImportacao", "O arquivo passa do tamanho máximo de " + tamanhoMaximoImportacao);
+        }
+    }
+
+    // Exporta tudo o que o filtro encontra. Os registros sao escritos na resposta
+    // conforme chegam do banco, a memoria usada nao depende do resultado.
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(PessoaFilter filtro,
+            @RequestParam(defaultValue = "CSV") FormatoExportacao formato,
+            @SortDefault(sort = "codigo", direction = Sort.Direction.ASC) Sort sort, HttpServletRequest request) {
+        TempoLimiteExportacao.marcar(request);
+        StreamingResponseBody corpo = saida -> {
+            long quantidade = pessoaService.exportar(filtro, sort, formato, saida);
+            logger.info("{} pessoas exportadas em {}", quantidade, formato);
+        };
+        ContentDisposition anexo = ContentDisposition.attachment().filename("pessoas." + formato.getExtensao()).build();
+        return ResponseEntity.ok()
+                .contentType(formato.getTipoConteudo())
+                .header(HttpHeaders.CONTENT_DISPOSITION, anexo.toString())
+                .body(corpo);
+    }
+
     @GetMapping("/abrirpesquisar")
     public String abrirPaginaPesquisa() {
         return "pessoas/pesquisar";
     }
 
     @HxRequest
+    @FragmentoEstatico
     @GetMapping("/abrirpesquisar")
     public String abrirPaginaPesquisaHTMX() {
         return "pessoas/pesquisar :: formulario";
     }
 
     @GetMapping("/pesquisar")
-    public String pesquisar(PessoaFilter filtro, Model model,
+    public String pesquisar(PessoaFilter filtro, CursorPaginacao cursor, Model model,
             @PageableDefault(size = 7) @SortDefault(sort = "codigo", direction = Sort.Direction.ASC) Pageable pageable,
-            HttpServletRequest request) {
-        Page<Pessoa> pagina = pessoaRepository.pesquisar(filtro, pageable);
-        logger.info("Pessoas pesquisadas: {}", pagina.getContent());
+            HttpServletRequest request, ServletWebRequest webRequest) {
+        if (respostaCondicional.naoModificada(webRequest, pessoaService.geracao(), "pagina")) {
+            return null;
+        }
+        Page<Pessoa> pagina = pessoaService.pesquisar(filtro, pageable, cursor);
+        if (logPayload.isInfoEnabled() && LogPayload.amostrar()) {
+            logPayload.info("Pessoas pesquisadas: {}", LogPayload.resumo(pagina.getContent()));
+        }
         PageWrapper<Pessoa> paginaWrapper = new PageWrapper<>(pagina, request);
         model.addAttribute("pagina", paginaWrapper);
         return "pessoas/pessoas";
@@ -132,10 +281,13 @@ public class PessoaController {
     @HxRequest
     @HxTriggerAfterSwap("htmlAtualizado")
     @GetMapping("/pesquisar")
-    public String pesquisarHTMX(PessoaFilter filtro, Model model,
+    public String pesquisarHTMX(PessoaFilter filtro, CursorPaginacao cursor, Model model,
             @PageableDefault(size = 7) @SortDefault(sort = "codigo", direction = Sort.Direction.ASC) Pageable pageable,
-            HttpServletRequest request) {
-        Page<Pessoa> pagina = pessoaRepository.pesquisar(filtro, pageable);
+            HttpServletRequest request, ServletWebRequest webRequest) {
+        if (respostaCondicional.naoModificada(webRequest, pessoaService.geracao(), "fragmento")) {
+            return null;
+        }
+        Page<Pessoa> pagina = pessoaService.pesquisar(filtro, pageable, cursor);
         logger.info("Pessoas pesquisadas: {}", pagina);
         PageWrapper<Pessoa> paginaWrapper = new PageWrapper<>(pagina, request);
         model.addAttribute("pagina", paginaWrapper);
@@ -154,8 +306,12 @@ public class PessoaController {
     }
 
     @PostMapping("/alterar")
-    public String alterar(Pessoa pessoa) {
-        pessoaService.alterar(pessoa);
+    public String alterar(Pessoa pessoa, BindingResult resultado) {
+        try {
+            pessoaService.alterar(pessoa);
+        } catch (CpfRepetidoException | DataIntegrityViolationException e) {
+            return rejeitarCpfRepetido(resultado, e, "pessoas/alterar");
+        }
         return "redirect:/pessoas/sucesso2";
     }
 
@@ -184,7 +340,11 @@ public class PessoaController {
             }
             return "pessoas/alterar :: formulario";
         } else {
-            pessoaService.alterar(pessoa);
+            try {
+                pessoaService.alterar(pessoa);
+            } catch (CpfRepetidoException | DataIntegrityViolationException e) {
+                return rejeitarCpfRepetido(resultado, e, "pessoas/alterar :: formulario");
+            }
             HtmxLocation hl = new HtmxLocation("/pessoas/sucesso2");
             hl.setTarget("#main");
             hl.setSwap("outerHTML");
@@ -223,4 +383,13 @@ public class PessoaController {
         return "pessoas/pesquisar :: formulario";
     }
 
+    // O CPF ja pertence a outra pessoa (CpfUnicoService) ou outra pessoa com o
+    // mesmo CPF foi gravada ao mesmo tempo (restricao UNIQUE de pessoa.cpf): o
+    // formulario volta com o erro no campo
+    private String rejeitarCpfRepetido(BindingResult resultado, RuntimeException e, String view) {
+        logger.info("A pessoa não foi gravada: {}", e.getMessage());
+        resultado.rejectValue("cpf", "cpf.repetido", "Já existe uma pessoa cadastrada com este CPF");
+        return view;
+    }
+
 }
@@ -4,11 +4,16 @@ import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,6 +21,9 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.wimdeblauwe.htmx.spring.boot.mvc.HtmxLocation;
 import io.github.wimdeblauwe.htmx.spring.boot.mvc.HtmxResponse;
@@ -24,13 +32,19 @@ import io.github.wimdeblauwe.htmx.spring.boot.mvc.HxRequest;
 import io.github.wimdeblauwe.htmx.spring.boot.mvc.HxTriggerAfterSwap;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import web.controlevacinacao.cache.RespostaCondicional;
+import web.controlevacinacao.exportacao.FormatoExportacao;
+import web.controlevacinacao.exportacao.TempoLimiteExportacao;
 import web.controlevacinacao.filter.VacinaFilter;
+import web.controlevacinacao.fragmento.FragmentoEstatico;
+import web.controlevacinacao.log.LogPayload;
 import web.controlevacinacao.model.Status;
 import web.controlevacinacao.model.Vacina;
 import web.controlevacinacao.notificacao.NotificacaoSweetAlert2;
 import web.controlevacinacao.notificacao.TipoNotificaoSweetAlert2;
 import web.controlevacinacao.pagination.PageWrapper;
 import web.controlevacinacao.repository.VacinaRepository;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
 import web.controlevacinacao.service.VacinaService;
 
 @Controller
@@ -38,29 +52,55 @@ import web.controlevacinacao.service.VacinaService;
 public class VacinaController {
 
     private static final Logger logger = LoggerFactory.getLogger(VacinaController.class);
+    private static final Logger logPayload = LogPayload.logger(VacinaController.class);
+
+    @Value("${listagem.tamanho-bloco:50}")
+    private int tamanhoBlocoListagem;
 
     private VacinaRepository vacinaRepository;
     private VacinaService vacinaService;
+    private RespostaCondicional respostaCondicional;
 
-    public VacinaController(VacinaRepository vacinaRepository, VacinaService vacinaService) {
+    public VacinaController(VacinaRepository vacinaRepository, VacinaService vacinaService,
+            RespostaCondicional respostaCondicional) {
         this.vacinaRepository = vacinaRepository;
         this.vacinaService = vacinaService;
+        this.respostaCondicional = respostaCondicional;
     }
 
+    // A listagem e carregada em blocos: a pagina traz o primeiro e a ultima
+    // linha de cada bloco pede o seguinte ao aparecer na tela (rolagem infinita).
     @GetMapping("/todas")
-    public String mostrarTodasVacinas(Model model) {
-        List<Vacina> vacinas = vacinaRepository.findAll();
-        logger.info("Vacinas buscadas: {}", vacinas);
-        model.addAttribute("vacinas", vacinas);
+    public String mostrarTodasVacinas(CursorPaginacao cursor, Model model) {
+        buscarBloco(cursor, model);
         return "vacinas/todas";
     }
 
+    @HxRequest
+    @GetMapping("/todas")
+    public String mostrarBlocoVacinasHTMX(CursorPaginacao cursor, Model model) {
+        buscarBloco(cursor, model);
+        return "vacinas/todas :: linhas";
+    }
+
+    private void buscarBloco(CursorPaginacao cursor, Model model) {
+        Pageable pageable = PageRequest.of(0, tamanhoBlocoListagem, Sort.by(Sort.Direction.ASC, "codigo"));
+        Page<Vacina> bloco = vacinaRepository.listar(pageable, cursor);
+        logger.info("Bloco de vacinas buscado com {} registros", bloco.getNumberOfElements());
+        List<Vacina> vacinas = bloco.getContent();
+        model.addAttribute("vacinas", vacinas);
+        if (bloco.hasNext()) {
+            model.addAttribute("proximoCodigo", vacinas.get(vacinas.size() - 1).getCodigo());
+        }
+    }
+
     @GetMapping("/cadastrar")
     public String abrirPaginaCadastro(Vacina vacina) {
         return "vacinas/cadastro";
     }
 
     @HxRequest
+    @FragmentoEstatico
     @GetMapping("/cadastrar")
     public String abrirCadastroVacinaHTMX(Vacina vacina) {
         return "vacinas/cadastro :: formulario";
@@ -107,23 +147,47 @@ public class VacinaController {
         return "vacinas/cadastro :: formulario";
     }
 
+    // Exporta tudo o que o filtro encontra. Os registros sao escritos na resposta
+    // conforme chegam do banco, a memoria usada nao depende do resultado.
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(VacinaFilter filtro,
+            @RequestParam(defaultValue = "CSV") FormatoExportacao formato,
+            @SortDefault(sort = "codigo", direction = Sort.Direction.ASC) Sort sort, HttpServletRequest request) {
+        TempoLimiteExportacao.marcar(request);
+        StreamingResponseBody corpo = saida -> {
+            long quantidade = vacinaService.exportar(filtro, sort, formato, saida);
+            logger.info("{} vacinas exportadas em {}", quantidade, formato);
+        };
+        ContentDisposition anexo = ContentDisposition.attachment().filename("vacinas." + formato.getExtensao()).build();
+        return ResponseEntity.ok()
+                .contentType(formato.getTipoConteudo())
+                .header(HttpHeaders.CONTENT_DISPOSITION, anexo.toString())
+                .body(corpo);
+    }
+
     @GetMapping("/abrirpesquisar")
     public String abrirPaginaPesquisa() {
         return "vacinas/pesquisar";
     }
 
     @HxRequest
+    @FragmentoEstatico
     @GetMapping("/abrirpesquisar")
     public String abrirPaginaPesquisaHTMX() {
         return "vacinas/pesquisar :: formulario";
     }
 
     @GetMapping("/pesquisar")
-    public String pesquisar(VacinaFilter filtro, Model model,
+    public String pesquisar(VacinaFilter filtro, CursorPaginacao cursor, Model model,
             @PageableDefault(size = 7) @SortDefault(sort = "codigo", direction = Sort.Direction.ASC) Pageable pageable,
-            HttpServletRequest request) {
-        Page<Vacina> pagina = vacinaRepository.pesquisar(filtro, pageable);
-        logger.info("Vacinas pesquisadas: {}", pagina.getContent());
+            HttpServletRequest request, ServletWebRequest webRequest) {
+        if (respostaCondicional.naoModificada(webRequest, vacinaService.geracao(), "pagina")) {
+            return null;
+        }
+        Page<Vacina> pagina = vacinaService.pesquisar(filtro, pageable, cursor);
+        if (logPayload.isInfoEnabled() && LogPayload.amostrar()) {
+            logPayload.info("Vacinas pesquisadas: {}", LogPayload.resumo(pagina.getContent()));
+        }
         PageWrapper<Vacina> paginaWrapper = new PageWrapper<>(pagina, request);
         model.addAttribute("pagina", paginaWrapper);
         return "vacinas/vacinas";
@@ -132,10 +196,13 @@ public class VacinaController {
     @HxRequest
     @HxTriggerAfterSwap("htmlAtualizado")
     @GetMapping("/pesquisar")
-    public String pesquisarHTMX(VacinaFilter filtro, Model model,
+    public String pesquisarHTMX(VacinaFilter filtro, CursorPaginacao cursor, Model model,
             @PageableDefault(size = 7) @SortDefault(sort = "codigo", direction = Sort.Direction.ASC) Pageable pageable,
-            HttpServletRequest request) {
-        Page<Vacina> pagina = vacinaRepository.pesquisar(filtro, pageable);
+            HttpServletRequest request, ServletWebRequest webRequest) {
+        if (respostaCondicional.naoModificada(webRequest, vacinaService.geracao(), "fragmento")) {
+            return null;
+        }
+        Page<Vacina> pagina = vacinaService.pesquisar(filtro, pageable, cursor);
         logger.info("Vacinas pesquisadas: {}", pagina);
         PageWrapper<Vacina> paginaWrapper = new PageWrapper<>(pagina, request);
         model.addAttribute("pagina", paginaWrapper);
@@ -0,0 +1,64 @@
+package web.controlevacinacao.csv;
+
+import java.io.IOException;
+
+// Escreve registros CSV em qualquer Appendable (Writer, StringBuilder...). Os
+// campos so vao entre aspas quando contem o separador, aspas ou quebra de linha
+// e null vira um campo vazio.
+public class EscritorCsv {
+
+    private final Appendable saida;
+    private final char separador;
+
+    public EscritorCsv(Appendable saida) {
+        this(saida, ',');
+    }
+
+    public EscritorCsv(Appendable saida, char separador) {
+        this.saida = saida;
+        this.separador = separador;
+    }
+
+    public void escreverRegistro(Object... valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                saida.append(separador);
+            }
+            if (valores[i] != null) {
+                escreverCampo(valores[i].toString());
+            }
+        }
+        saida.append('\n');
+    }
+
+    private void escreverCampo(String valor) throws IOException {
+        if (!precisaAspas(valor)) {
+            saida.append(valor);
+            return;
+        }
+        saida.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                saida.append('"');
+            }
+            saida.append(c);
+        }
+        saida.append('"');
+    }
+
+    private boolean precisaAspas(String valor) {
+        // Campo vazio entre aspas para nao ser confundido com null
+        if (valor.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == separador || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
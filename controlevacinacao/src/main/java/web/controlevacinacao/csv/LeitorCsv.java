@@ -0,0 +1,141 @@
+package web.controlevacinacao.csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Leitor de CSV que le um registro por vez direto do stream, sem carregar o
+// arquivo na memoria. Aceita campos entre aspas (com aspas duplicadas e quebras
+// de linha dentro do campo) e separador ',' ou ';', detectado pelo cabecalho.
+public class LeitorCsv implements Closeable {
+
+    // Protege contra arquivos sem quebra de linha ou com aspas sem fechamento,
+    // que fariam um unico registro crescer ate estourar a memoria
+    private static final int TAMANHO_MAXIMO_REGISTRO = 64 * 1024;
+    private static final int TAMANHO_DETECCAO = 8 * 1024;
+
+    private final BufferedReader reader;
+    private final char separador;
+    private long linhaAtual = 1;
+    private long linhaRegistro;
+
+    private LeitorCsv(BufferedReader reader, char separador) {
+        this.reader = reader;
+        this.separador = separador;
+    }
+
+    public static LeitorCsv abrir(InputStream entrada) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        // Ignora o BOM que alguns editores colocam no inicio de arquivos UTF-8
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        reader.mark(TAMANHO_DETECCAO);
+        char separador = detectarSeparador(reader);
+        reader.reset();
+        return new LeitorCsv(reader, separador);
+    }
+
+    private static char detectarSeparador(BufferedReader reader) throws IOException {
+        int virgulas = 0;
+        int pontosEVirgulas = 0;
+        for (int i = 0; i < TAMANHO_DETECCAO - 1; i++) {
+            int c = reader.read();
+            if (c == -1 || c == '\n' || c == '\r') {
+                break;
+            }
+            if (c == ',') {
+                virgulas++;
+            } else if (c == ';') {
+                pontosEVirgulas++;
+            }
+        }
+        return pontosEVirgulas > virgulas ? ';' : ',';
+    }
+
+    // Retorna os campos do proximo registro ou null no fim do arquivo. Linhas
+    // em branco sao ignoradas.
+    public List<String> proximoRegistro() throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+        boolean leuAlgo = false;
+        int tamanho = 0;
+        linhaRegistro = linhaAtual;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (++tamanho > TAMANHO_MAXIMO_REGISTRO) {
+                throw new IOException("O registro iniciado na linha " + linhaRegistro + " passa de "
+                        + TAMANHO_MAXIMO_REGISTRO + " caracteres");
+            }
+            if (entreAspas) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int seguinte = reader.read();
+                    if (seguinte == '"') {
+                        campo.append('"');
+                    } else {
+                        entreAspas = false;
+                        if (seguinte != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        linhaAtual++;
+                    }
+                    campo.append((char) c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+                leuAlgo = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+                leuAlgo = true;
+            } else if (c == '\r') {
+                // tratado junto com o '\n'
+            } else if (c == '\n') {
+                linhaAtual++;
+                if (leuAlgo || campo.length() > 0) {
+                    campos.add(campo.toString());
+                    return campos;
+                }
+                linhaRegistro = linhaAtual;
+                tamanho = 0;
+            } else {
+                campo.append((char) c);
+                leuAlgo = true;
+            }
+        }
+        if (entreAspas) {
+            throw new IOException("Aspas sem fechamento no registro iniciado na linha " + linhaRegistro);
+        }
+        if (leuAlgo || campo.length() > 0) {
+            campos.add(campo.toString());
+            return campos;
+        }
+        return null;
+    }
+
+    // Linha do arquivo onde comecou o ultimo registro lido
+    public long getLinhaRegistro() {
+        return linhaRegistro;
+    }
+
+    public char getSeparador() {
+        return separador;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
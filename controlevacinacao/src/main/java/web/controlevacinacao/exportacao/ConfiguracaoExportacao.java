@@ -0,0 +1,24 @@
+package web.controlevacinacao.exportacao;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ConfiguracaoExportacao implements WebMvcConfigurer {
+
+    private final Duration tempoLimite;
+
+    public ConfiguracaoExportacao(@Value("${exportacao.tempo-limite:10m}") Duration tempoLimite) {
+        this.tempoLimite = tempoLimite;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new TempoLimiteExportacao(tempoLimite));
+    }
+
+}
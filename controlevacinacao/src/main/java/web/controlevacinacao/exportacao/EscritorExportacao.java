@@ -0,0 +1,82 @@
+package web.controlevacinacao.exportacao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import web.controlevacinacao.csv.EscritorCsv;
+
+// Escreve os registros exportados direto na saida da resposta, um por vez, em
+// CSV (com cabecalho) ou NDJSON (um objeto JSON por linha). Nada e acumulado
+// alem do buffer do Writer.
+public class EscritorExportacao {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final FormatoExportacao formato;
+    private final String[] colunas;
+    private final Writer writer;
+    private EscritorCsv escritorCsv;
+    private JsonGenerator jsonGenerator;
+    private long registros;
+
+    public EscritorExportacao(FormatoExportacao formato, OutputStream saida, String... colunas) throws IOException {
+        this.formato = formato;
+        this.colunas = colunas;
+        this.writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        if (formato == FormatoExportacao.CSV) {
+            escritorCsv = new EscritorCsv(writer);
+            escritorCsv.escreverRegistro((Object[]) colunas);
+        } else {
+            jsonGenerator = JSON_FACTORY.createGenerator(writer);
+            jsonGenerator.setRootValueSeparator(new SerializedString("\n"));
+            // Quem decide quando enviar os dados ao cliente e o buffer do Writer
+            jsonGenerator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+    }
+
+    public void escrever(Object... valores) throws IOException {
+        registros++;
+        if (formato == FormatoExportacao.CSV) {
+            escritorCsv.escreverRegistro(valores);
+            return;
+        }
+        jsonGenerator.writeStartObject();
+        for (int i = 0; i < colunas.length; i++) {
+            Object valor = valores[i];
+            jsonGenerator.writeFieldName(colunas[i]);
+            if (valor == null) {
+                jsonGenerator.writeNull();
+            } else if (valor instanceof Long numero) {
+                jsonGenerator.writeNumber(numero);
+            } else if (valor instanceof Integer numero) {
+                jsonGenerator.writeNumber(numero);
+            } else {
+                jsonGenerator.writeString(valor.toString());
+            }
+        }
+        jsonGenerator.writeEndObject();
+    }
+
+    public long getRegistros() {
+        return registros;
+    }
+
+    public void concluir() throws IOException {
+        if (jsonGenerator != null) {
+            if (registros > 0) {
+                jsonGenerator.writeRaw('\n');
+            }
+            jsonGenerator.flush();
+        }
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,28 @@
+package web.controlevacinacao.exportacao;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.MediaType;
+
+public enum FormatoExportacao {
+
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+    NDJSON(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8), "ndjson");
+
+    private final MediaType tipoConteudo;
+    private final String extensao;
+
+    FormatoExportacao(MediaType tipoConteudo, String extensao) {
+        this.tipoConteudo = tipoConteudo;
+        this.extensao = extensao;
+    }
+
+    public MediaType getTipoConteudo() {
+        return tipoConteudo;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+
+}
@@ -0,0 +1,43 @@
+package web.controlevacinacao.exportacao;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Tempo limite proprio das respostas de exportacao, que podem demorar bem mais
+// que as outras respostas assincronas (spring.mvc.async.request-timeout). Ainda
+// assim finito: enquanto a exportacao escreve, ela segura uma transacao e uma
+// conexao do pool, e um cliente parado nao pode segura-las para sempre. Quando
+// o tempo acaba a resposta e encerrada, a proxima escrita falha e a transacao
+// devolve a conexao.
+public class TempoLimiteExportacao implements CallableProcessingInterceptor {
+
+    private static final String ATRIBUTO = TempoLimiteExportacao.class.getName();
+
+    private final Duration tempoLimite;
+
+    public TempoLimiteExportacao(Duration tempoLimite) {
+        this.tempoLimite = tempoLimite;
+    }
+
+    // Chamado pelo controller antes de devolver o StreamingResponseBody
+    public static void marcar(HttpServletRequest request) {
+        request.setAttribute(ATRIBUTO, Boolean.TRUE);
+    }
+
+    // Roda antes do processamento assincrono comecar, quando o tempo limite da
+    // requisicao ainda pode ser trocado
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest asyncWebRequest
+                && request.getAttribute(ATRIBUTO, NativeWebRequest.SCOPE_REQUEST) != null) {
+            asyncWebRequest.setTimeout(tempoLimite.toMillis());
+        }
+    }
+
+}
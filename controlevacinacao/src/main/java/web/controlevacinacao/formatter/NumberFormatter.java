@@ -1,13 +1,21 @@
 package web.controlevacinacao.formatter;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.format.Formatter;
 import org.springframework.lang.NonNull;
 
@@ -15,17 +23,21 @@ public abstract class NumberFormatter<T extends Number> implements Formatter<T>
 
 	private static final Logger logger = LoggerFactory.getLogger(NumberFormatter.class);
 
+	// Patterns como #,##0 e #,##0.00, os mais usados, sao formatados sem o
+	// DecimalFormat
+	private static final Pattern PADRAO_AGRUPADO = Pattern.compile("#,##0(?:\\.(0+))?");
+
+	// O DecimalFormat nao e thread-safe, por isso o cache guarda um prototipo ja
+	// montado por locale e cada uso trabalha com um clone dele. Clonar evita
+	// interpretar o pattern e montar o DecimalFormatSymbols a cada chamada.
+	private final Map<Locale, FormatoNumero> formatos = new ConcurrentHashMap<>();
+
 	@Override
 	public @NonNull String print(@NonNull T number, @NonNull Locale locale) {
 		logger.trace("Entrou em print");
 		logger.debug("Objeto recebido: {}, Locale: {}", number, locale);
-		String padrao = pattern(locale);
-		logger.debug("Padrao usado no DecimalFormat: {}", padrao);
-		DecimalFormatSymbols dfs = new DecimalFormatSymbols(locale);
-		logger.debug("Separador decimal do DecimalFormatSymbols: {}", dfs.getDecimalSeparator());
-		logger.debug("Separador de grupo do DecimalFormatSymbols: {}", dfs.getGroupingSeparator());
-		NumberFormat numberFormat = new DecimalFormat(padrao, dfs);
-		String retorno = numberFormat.format(number);
+		FormatoNumero formato = getFormato(locale);
+		String retorno = formato.formatar(number);
 		logger.debug("String a retornar: {}", retorno);
 		return retorno;
 	}
@@ -35,18 +47,115 @@ public abstract class NumberFormatter<T extends Number> implements Formatter<T>
 	public @NonNull T parse(@NonNull String text, @NonNull Locale locale) throws ParseException {
 		logger.trace("Entrou em parse");
 		logger.debug("String recebida: {}, Locale: {}", text, locale);
-		String padrao = pattern(locale);
-		logger.debug("Padrao usado no DecimalFormat: {}", padrao);
-		DecimalFormatSymbols dfs = new DecimalFormatSymbols(locale);
-		logger.debug("Separador decimal do DecimalFormatSymbols: {}", dfs.getDecimalSeparator());
-		logger.debug("Separador de grupo do DecimalFormatSymbols: {}", dfs.getGroupingSeparator());
-		DecimalFormat decimalFormat = new DecimalFormat(padrao, dfs);
-		decimalFormat.setParseBigDecimal(true);
+		DecimalFormat decimalFormat = getFormato(locale).novoDecimalFormat();
 		T objeto = (T) decimalFormat.parse(text);
 		logger.debug("Objeto a retornar: {}", objeto);
 		return objeto;
 	}
 
+	private FormatoNumero getFormato(Locale locale) {
+		FormatoNumero formato = formatos.get(locale);
+		if (formato == null) {
+			formato = formatos.computeIfAbsent(locale, l -> new FormatoNumero(pattern(l), l));
+		}
+		return formato;
+	}
+
+	// Os patterns vem do Environment. Quando o contexto e atualizado eles podem
+	// ter mudado, entao sao buscados de novo no proximo uso.
+	@EventListener(ContextRefreshedEvent.class)
+	public void limparFormatos() {
+		logger.debug("Descartando os formatos de número de {}", getClass().getSimpleName());
+		formatos.clear();
+	}
+
 	public abstract String pattern(Locale locale);
 
+	private static final class FormatoNumero {
+
+		private final DecimalFormat prototipo;
+		private final char separadorGrupo;
+		private final char separadorDecimal;
+		private final char sinalNegativo;
+		// -1 quando o pattern nao tem o caminho rapido
+		private final int casasDecimais;
+
+		private FormatoNumero(String padrao, Locale locale) {
+			DecimalFormatSymbols dfs = new DecimalFormatSymbols(locale);
+			logger.debug("Padrao {} usado no DecimalFormat do locale {}", padrao, locale);
+			logger.debug("Separador decimal do DecimalFormatSymbols: {}", dfs.getDecimalSeparator());
+			logger.debug("Separador de grupo do DecimalFormatSymbols: {}", dfs.getGroupingSeparator());
+			this.prototipo = new DecimalFormat(padrao, dfs);
+			this.prototipo.setParseBigDecimal(true);
+			this.separadorGrupo = dfs.getGroupingSeparator();
+			this.separadorDecimal = dfs.getDecimalSeparator();
+			this.sinalNegativo = dfs.getMinusSign();
+			Matcher matcher = PADRAO_AGRUPADO.matcher(padrao);
+			// Locales com outros digitos (arabe, devanagari...) ficam com o DecimalFormat
+			if (matcher.matches() && dfs.getZeroDigit() == '0') {
+				this.casasDecimais = matcher.group(1) != null ? matcher.group(1).length() : 0;
+			} else {
+				this.casasDecimais = -1;
+			}
+		}
+
+		private DecimalFormat novoDecimalFormat() {
+			return (DecimalFormat) prototipo.clone();
+		}
+
+		private String formatar(Number numero) {
+			BigDecimal valor = paraBigDecimal(numero);
+			if (casasDecimais < 0 || valor == null) {
+				return novoDecimalFormat().format(numero);
+			}
+			return formatarAgrupado(valor);
+		}
+
+		// So tipos exatos usam o caminho rapido. Com double e float o
+		// arredondamento do DecimalFormat e mantido.
+		private static BigDecimal paraBigDecimal(Number numero) {
+			if (numero instanceof BigDecimal bigDecimal) {
+				return bigDecimal;
+			}
+			if (numero instanceof Integer || numero instanceof Long || numero instanceof Short
+					|| numero instanceof Byte) {
+				return BigDecimal.valueOf(numero.longValue());
+			}
+			if (numero instanceof BigInteger bigInteger) {
+				return new BigDecimal(bigInteger);
+			}
+			return null;
+		}
+
+		// Mesmo resultado do DecimalFormat para #,##0[.00...]: HALF_EVEN, grupos
+		// de tres digitos e o sinal mantido mesmo quando o valor arredonda para zero.
+		private String formatarAgrupado(BigDecimal valor) {
+			String digitos = valor.abs().setScale(casasDecimais, RoundingMode.HALF_EVEN).unscaledValue().toString();
+			int tamanhoInteiro = digitos.length() - casasDecimais;
+			StringBuilder retorno = new StringBuilder(digitos.length() + digitos.length() / 3 + 2);
+			if (valor.signum() < 0) {
+				retorno.append(sinalNegativo);
+			}
+			if (tamanhoInteiro <= 0) {
+				retorno.append('0');
+			} else {
+				for (int i = 0; i < tamanhoInteiro; i++) {
+					if (i > 0 && (tamanhoInteiro - i) % 3 == 0) {
+						retorno.append(separadorGrupo);
+					}
+					retorno.append(digitos.charAt(i));
+				}
+			}
+			if (casasDecimais > 0) {
+				retorno.append(separadorDecimal);
+				for (int i = tamanhoInteiro; i < 0; i++) {
+					retorno.append('0');
+				}
+				retorno.append(digitos, Math.max(tamanhoInteiro, 0), digitos.length());
+			}
+			return retorno.toString();
+		}
+
+	}
+
 }
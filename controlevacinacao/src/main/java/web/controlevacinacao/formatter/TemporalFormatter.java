@@ -4,8 +4,12 @@ import java.text.ParseException;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.Temporal;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.format.Formatter;
 import org.springframework.lang.NonNull;
 
@@ -13,6 +17,11 @@ public abstract class TemporalFormatter<T extends Temporal> implements Formatter
 
 	private static final Logger logger = LoggerFactory.getLogger(TemporalFormatter.class);
 
+	// O DateTimeFormatter e imutavel e thread-safe, entao cada locale tem o seu
+	// montado uma vez so, em vez de buscar o pattern no Environment e compila-lo a
+	// cada data formatada ou convertida.
+	private final Map<Locale, DateTimeFormatter> formatadores = new ConcurrentHashMap<>();
+
 	@Override
 	public @NonNull String print(@NonNull T temporal, @NonNull Locale locale) {
 		logger.trace("Entrou em print");
@@ -35,11 +44,27 @@ public abstract class TemporalFormatter<T extends Temporal> implements Formatter
 	}
 
 	private DateTimeFormatter getDateTimeFormatter(Locale locale) {
+		DateTimeFormatter formatter = formatadores.get(locale);
+		if (formatter == null) {
+			formatter = formatadores.computeIfAbsent(locale, this::criarDateTimeFormatter);
+		}
+		return formatter;
+	}
+
+	private DateTimeFormatter criarDateTimeFormatter(Locale locale) {
 		String padrao = pattern(locale);
-		logger.debug("Pattern: {}", padrao);
+		logger.debug("Pattern: {} compilado para o locale: {}", padrao, locale);
 		return DateTimeFormatter.ofPattern(padrao);
 	}
 
+	// Os patterns vem do Environment. Quando o contexto e atualizado eles podem
+	// ter mudado, entao sao buscados e compilados de novo no proximo uso.
+	@EventListener(ContextRefreshedEvent.class)
+	public void limparFormatadores() {
+		logger.debug("Descartando os DateTimeFormatter compilados de {}", getClass().getSimpleName());
+		formatadores.clear();
+	}
+
 	public abstract String pattern(Locale locale);
 
 	public abstract T parse(String text, DateTimeFormatter formatter);
@@ -0,0 +1,61 @@
+package web.controlevacinacao.fragmento;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Fragmentos HTMX ja renderizados, por metodo do controller, parametros da URL e
+// locale. Os templates nao mudam com a aplicacao rodando, entao as entradas so
+// saem pelo limite de tamanho. Quando o Thymeleaf nao guarda os templates
+// (spring.thymeleaf.cache=false, como no devtools) este cache tambem fica
+// desligado, para as alteracoes nos templates aparecerem.
+@Component
+public class CacheFragmentos {
+
+    private final Cache<ChaveFragmento, FragmentoRenderizado> cache;
+    private final boolean habilitado;
+    private final int tamanhoMaximoConsulta;
+
+    public CacheFragmentos(MeterRegistry meterRegistry,
+            @Value("${fragmentos.cache.habilitado:${spring.thymeleaf.cache:true}}") boolean habilitado,
+            @Value("${fragmentos.cache.tamanho-maximo:200}") long tamanhoMaximo,
+            @Value("${fragmentos.cache.tamanho-maximo-consulta:256}") int tamanhoMaximoConsulta) {
+        this.habilitado = habilitado;
+        this.tamanhoMaximoConsulta = tamanhoMaximoConsulta;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "fragmentos");
+    }
+
+    // null quando a requisicao nao pode usar o cache. Os parametros da URL sao
+    // as unicas entradas do model que variam nesses fragmentos, URLs longas
+    // ficam de fora para o numero de entradas continuar pequeno.
+    ChaveFragmento chave(Method metodo, String consulta, Locale locale) {
+        if (!habilitado || (consulta != null && consulta.length() > tamanhoMaximoConsulta)) {
+            return null;
+        }
+        return new ChaveFragmento(metodo, consulta == null ? "" : consulta, locale);
+    }
+
+    FragmentoRenderizado obter(ChaveFragmento chave) {
+        return cache.getIfPresent(chave);
+    }
+
+    void guardar(ChaveFragmento chave, FragmentoRenderizado fragmento) {
+        cache.put(chave, fragmento);
+    }
+
+    record ChaveFragmento(Method metodo, String consulta, Locale locale) {
+    }
+
+}
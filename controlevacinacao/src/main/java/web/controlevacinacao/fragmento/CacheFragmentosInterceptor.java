@@ -0,0 +1,96 @@
+package web.controlevacinacao.fragmento;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import web.controlevacinacao.fragmento.CacheFragmentos.ChaveFragmento;
+import web.controlevacinacao.metricas.RegistroHandlerInterceptor;
+
+// Atende os metodos com @FragmentoEstatico pelo CacheFragmentos. Se o fragmento
+// ja foi renderizado a resposta sai daqui, sem chamar o controller: um 304 se
+// o If-None-Match do navegador bater com o ETag, senao o HTML guardado. Se nao
+// foi, a view do controller e trocada por uma que guarda o HTML gerado.
+public class CacheFragmentosInterceptor implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_CHAVE = CacheFragmentosInterceptor.class.getName() + ".chave";
+
+    private final CacheFragmentos cacheFragmentos;
+    private final ObjectProvider<ThymeleafViewResolver> viewResolver;
+
+    public CacheFragmentosInterceptor(CacheFragmentos cacheFragmentos,
+            ObjectProvider<ThymeleafViewResolver> viewResolver) {
+        this.cacheFragmentos = cacheFragmentos;
+        this.viewResolver = viewResolver;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod) || !HttpMethod.GET.matches(request.getMethod())
+                || !handlerMethod.hasMethodAnnotation(FragmentoEstatico.class)) {
+            return true;
+        }
+        ChaveFragmento chave = cacheFragmentos.chave(handlerMethod.getMethod(), request.getQueryString(),
+                RequestContextUtils.getLocale(request));
+        if (chave == null) {
+            return true;
+        }
+        FragmentoRenderizado fragmento = cacheFragmentos.obter(chave);
+        if (fragmento == null) {
+            request.setAttribute(ATRIBUTO_CHAVE, chave);
+            return true;
+        }
+
+        request.setAttribute(RegistroHandlerInterceptor.ATRIBUTO_VIEW, fragmento.view());
+        for (Map.Entry<String, String> cabecalho : fragmento.cabecalhosHtmx().entrySet()) {
+            response.setHeader(cabecalho.getKey(), cabecalho.getValue());
+        }
+        cabecalhosCache(response);
+        if (new ServletWebRequest(request, response).checkNotModified(fragmento.etag())) {
+            return false;
+        }
+        response.setHeader("ETag", fragmento.etag());
+        response.setContentType(fragmento.contentType());
+        response.setContentLength(fragmento.conteudo().length);
+        response.getOutputStream().write(fragmento.conteudo());
+        return false;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+            ModelAndView modelAndView) throws Exception {
+        Object chave = request.getAttribute(ATRIBUTO_CHAVE);
+        if (chave == null || modelAndView == null || modelAndView.getViewName() == null
+                || modelAndView.getViewName().startsWith("redirect:")) {
+            return;
+        }
+        String nomeView = modelAndView.getViewName();
+        ThymeleafViewResolver resolver = viewResolver.getIfAvailable();
+        View view = resolver != null ? resolver.resolveViewName(nomeView, RequestContextUtils.getLocale(request)) : null;
+        if (view == null) {
+            return;
+        }
+        // Depois do setView o ModelAndView nao tem mais o nome, a metrica o recebe aqui
+        request.setAttribute(RegistroHandlerInterceptor.ATRIBUTO_VIEW, nomeView);
+        modelAndView.setView(new CapturaFragmentoView(view, nomeView, (ChaveFragmento) chave, cacheFragmentos));
+    }
+
+    // O navegador guarda o fragmento mas sempre confirma com o servidor (304).
+    // A mesma URL devolve a pagina inteira sem o cabecalho HX-Request.
+    static void cabecalhosCache(HttpServletResponse response) {
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Vary", "HX-Request");
+    }
+
+}
@@ -0,0 +1,70 @@
+package web.controlevacinacao.fragmento;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.View;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import web.controlevacinacao.fragmento.CacheFragmentos.ChaveFragmento;
+
+// Renderiza o fragmento com a view do Thymeleaf em memoria, guarda o resultado
+// no cache e so entao envia a resposta (ou um 304, se o navegador ja tiver
+// esse mesmo HTML).
+class CapturaFragmentoView implements View {
+
+    private final View view;
+    private final String nomeView;
+    private final ChaveFragmento chave;
+    private final CacheFragmentos cacheFragmentos;
+
+    CapturaFragmentoView(View view, String nomeView, ChaveFragmento chave, CacheFragmentos cacheFragmentos) {
+        this.view = view;
+        this.nomeView = nomeView;
+        this.chave = chave;
+        this.cacheFragmentos = cacheFragmentos;
+    }
+
+    @Override
+    public String getContentType() {
+        return view.getContentType();
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        ContentCachingResponseWrapper captura = new ContentCachingResponseWrapper(response);
+        view.render(model, request, captura);
+        if (captura.getStatus() != HttpServletResponse.SC_OK) {
+            captura.copyBodyToResponse();
+            return;
+        }
+
+        byte[] conteudo = captura.getContentAsByteArray();
+        String etag = "\"" + DigestUtils.md5DigestAsHex(conteudo) + "\"";
+        Map<String, String> cabecalhosHtmx = new LinkedHashMap<>();
+        for (String nome : response.getHeaderNames()) {
+            if (nome.toUpperCase(Locale.ROOT).startsWith("HX-")) {
+                cabecalhosHtmx.put(nome, response.getHeader(nome));
+            }
+        }
+        cacheFragmentos.guardar(chave,
+                new FragmentoRenderizado(nomeView, conteudo, captura.getContentType(), etag, Map.copyOf(cabecalhosHtmx)));
+
+        CacheFragmentosInterceptor.cabecalhosCache(response);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            // O navegador ja tem este HTML, o corpo capturado e descartado
+            return;
+        }
+        if (response.getHeader("ETag") == null) {
+            response.setHeader("ETag", etag);
+        }
+        captura.copyBodyToResponse();
+    }
+
+}
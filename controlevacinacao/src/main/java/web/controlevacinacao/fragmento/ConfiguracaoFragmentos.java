@@ -0,0 +1,29 @@
+package web.controlevacinacao.fragmento;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+@Configuration
+public class ConfiguracaoFragmentos implements WebMvcConfigurer {
+
+    private final CacheFragmentos cacheFragmentos;
+    private final ObjectProvider<ThymeleafViewResolver> viewResolver;
+
+    public ConfiguracaoFragmentos(CacheFragmentos cacheFragmentos, ObjectProvider<ThymeleafViewResolver> viewResolver) {
+        this.cacheFragmentos = cacheFragmentos;
+        this.viewResolver = viewResolver;
+    }
+
+    // Por ultimo: os outros interceptors (metricas, htmx) ja rodaram quando a
+    // resposta sai do cache
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new CacheFragmentosInterceptor(cacheFragmentos, viewResolver))
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+
+}
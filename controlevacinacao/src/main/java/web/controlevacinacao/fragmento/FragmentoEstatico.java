@@ -0,0 +1,18 @@
+package web.controlevacinacao.fragmento;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marca um metodo GET de controller cujo fragmento renderizado so depende do
+// template e dos parametros da URL (nada vindo do banco, da sessao ou de
+// mensagens flash). O HTML gerado e guardado pelo CacheFragmentos e servido
+// com ETag, sem chamar o metodo nem o Thymeleaf de novo.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FragmentoEstatico {
+
+}
@@ -0,0 +1,9 @@
+package web.controlevacinacao.fragmento;
+
+import java.util.Map;
+
+// O que e preciso para repetir a resposta: o HTML, o Content-Type, o ETag
+// calculado a partir do HTML e os cabecalhos HX-* colocados pelo htmx.
+record FragmentoRenderizado(String view, byte[] conteudo, String contentType, String etag,
+        Map<String, String> cabecalhosHtmx) {
+}
@@ -0,0 +1,49 @@
+package web.controlevacinacao.importacao;
+
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Substitui o MultipartResolver do Spring Boot. Nos caminhos de importacao o
+// corpo multipart nao e resolvido pelo DispatcherServlet: o controller le o
+// arquivo como stream (commons-fileupload), sem gravar no disco temporario e
+// sem os limites globais de spring.servlet.multipart.*. Os demais envios seguem
+// o comportamento padrao.
+@Configuration
+public class ConfiguracaoImportacao {
+
+    public static final String CAMINHO_IMPORTACAO_PESSOAS = "/pessoas/importar";
+
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver(MultipartProperties multipartProperties) {
+        ResolvedorMultipart resolvedor = new ResolvedorMultipart(Set.of(CAMINHO_IMPORTACAO_PESSOAS));
+        resolvedor.setResolveLazily(multipartProperties.isResolveLazily());
+        resolvedor.setStrictServletCompliance(multipartProperties.isStrictServletCompliance());
+        return resolvedor;
+    }
+
+    static class ResolvedorMultipart extends StandardServletMultipartResolver {
+
+        private final Set<String> caminhosStream;
+
+        ResolvedorMultipart(Set<String> caminhosStream) {
+            this.caminhosStream = caminhosStream;
+        }
+
+        @Override
+        public boolean isMultipart(HttpServletRequest request) {
+            return !caminhosStream.contains(UrlPathHelper.defaultInstance.getPathWithinApplication(request))
+                    && super.isMultipart(request);
+        }
+
+    }
+
+}
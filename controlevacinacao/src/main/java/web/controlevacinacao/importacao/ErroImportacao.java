@@ -0,0 +1,26 @@
+package web.controlevacinacao.importacao;
+
+public class ErroImportacao {
+
+    private final long linha;
+    private final String mensagem;
+
+    public ErroImportacao(long linha, String mensagem) {
+        this.linha = linha;
+        this.mensagem = mensagem;
+    }
+
+    public long getLinha() {
+        return linha;
+    }
+
+    public String getMensagem() {
+        return mensagem;
+    }
+
+    @Override
+    public String toString() {
+        return "linha: " + linha + "\nmensagem: " + mensagem;
+    }
+
+}
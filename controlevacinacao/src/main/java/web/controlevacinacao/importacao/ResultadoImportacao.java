@@ -0,0 +1,72 @@
+package web.controlevacinacao.importacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Resumo de uma importacao. Somente os primeiros erros sao guardados com
+// detalhes, os demais so sao contados, para que um arquivo inteiro invalido
+// nao ocupe a memoria com milhoes de mensagens.
+public class ResultadoImportacao {
+
+    private final int maximoErrosDetalhados;
+    private final List<ErroImportacao> erros = new ArrayList<>();
+    private long registrosLidos;
+    private long registrosGravados;
+    private long totalErros;
+
+    public ResultadoImportacao(int maximoErrosDetalhados) {
+        this.maximoErrosDetalhados = maximoErrosDetalhados;
+    }
+
+    public void registrarLeitura() {
+        registrosLidos++;
+    }
+
+    public void registrarGravados(long quantidade) {
+        registrosGravados += quantidade;
+    }
+
+    public void registrarErro(long linha, String mensagem) {
+        registrarErros(linha, mensagem, 1);
+    }
+
+    // Um erro que afeta varios registros, como a falha na gravacao de um bloco
+    public void registrarErros(long linha, String mensagem, long quantidade) {
+        totalErros += quantidade;
+        if (erros.size() < maximoErrosDetalhados) {
+            erros.add(new ErroImportacao(linha, mensagem));
+        }
+    }
+
+    public List<ErroImportacao> getErros() {
+        return Collections.unmodifiableList(erros);
+    }
+
+    public long getRegistrosLidos() {
+        return registrosLidos;
+    }
+
+    public long getRegistrosGravados() {
+        return registrosGravados;
+    }
+
+    public long getTotalErros() {
+        return totalErros;
+    }
+
+    public long getErrosNaoDetalhados() {
+        return totalErros - erros.size();
+    }
+
+    public boolean isSemErros() {
+        return totalErros == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "registrosLidos: " + registrosLidos + "\nregistrosGravados: " + registrosGravados
+                + "\ntotalErros: " + totalErros;
+    }
+
+}
@@ -0,0 +1,72 @@
+package web.controlevacinacao.log;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.async.AsyncLoggerConfigDelegate;
+import org.apache.logging.log4j.core.jmx.RingBufferAdmin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+@Configuration
+public class ConfiguracaoLog {
+
+	public ConfiguracaoLog(@Value("${logging.payload.amostragem:1.0}") double taxaAmostragem,
+			@Value("${logging.payload.maximo-elementos:10}") int maximoElementos,
+			@Value("${logging.payload.maximo-caracteres:300}") int maximoCaracteres) {
+		LogPayload.configurar(taxaAmostragem, maximoElementos, maximoCaracteres);
+	}
+
+	// Ocupacao da fila dos AsyncLogger e eventos que a encontraram cheia. Com
+	// log4j2.ringbuffer.restante perto de zero as requisicoes passam a descartar
+	// (ou esperar por) logs.
+	@Bean
+	public MeterBinder metricasFilaLog() {
+		return registry -> {
+			Gauge.builder("log4j2.ringbuffer.tamanho", ConfiguracaoLog::tamanhoFila)
+					.description("Capacidade da fila dos AsyncLogger")
+					.register(registry);
+			Gauge.builder("log4j2.ringbuffer.restante", ConfiguracaoLog::espacoRestanteFila)
+					.description("Espaco livre na fila dos AsyncLogger")
+					.register(registry);
+			FunctionCounter.builder("log4j2.fila.cheia", PoliticaFilaLogCheia.class,
+					c -> PoliticaFilaLogCheia.getDescartados())
+					.tag("resultado", "descartado")
+					.description("Eventos de log descartados com a fila cheia")
+					.register(registry);
+			FunctionCounter.builder("log4j2.fila.cheia", PoliticaFilaLogCheia.class,
+					c -> PoliticaFilaLogCheia.getAguardaram())
+					.tag("resultado", "aguardou")
+					.description("Eventos de log que esperaram por espaco na fila cheia")
+					.register(registry);
+		};
+	}
+
+	private static double tamanhoFila() {
+		RingBufferAdmin fila = filaAtual();
+		return fila == null ? Double.NaN : fila.getBufferSize();
+	}
+
+	private static double espacoRestanteFila() {
+		RingBufferAdmin fila = filaAtual();
+		return fila == null ? Double.NaN : fila.getRemainingCapacity();
+	}
+
+	// A configuracao do log4j e trocada quando o Spring carrega o
+	// log4j2-spring.xml, entao a fila e buscada a cada leitura da metrica
+	private static RingBufferAdmin filaAtual() {
+		try {
+			LoggerContext contexto = (LoggerContext) LogManager.getContext(false);
+			AsyncLoggerConfigDelegate delegate = contexto.getConfiguration().getAsyncLoggerConfigDelegate();
+			return delegate.createRingBufferAdmin(contexto.getName(), "");
+		} catch (RuntimeException e) {
+			// Fila ainda nao iniciada ou log4j sem AsyncLogger
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package web.controlevacinacao.log;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Log dos dados das requisicoes (filtros, entidades, paginas de resultado).
+// Esses logs usam loggers proprios (web.controlevacinacao.payload.*), que em
+// producao tem um BurstFilter no log4j2-spring.xml, so uma amostra das
+// chamadas e registrada e o texto de cada valor tem tamanho limitado.
+//
+// Uso:
+// if (logPayload.isInfoEnabled() && LogPayload.amostrar()) {
+//     logPayload.info("Vacinas pesquisadas: {}", LogPayload.resumo(pagina.getContent()));
+// }
+public final class LogPayload {
+
+	private static final String PREFIXO_LOGGER = "web.controlevacinacao.payload.";
+
+	// Definidos pela ConfiguracaoLog a partir das propriedades logging.payload.*
+	private static volatile double taxaAmostragem = 1.0;
+	private static volatile int maximoElementos = 10;
+	private static volatile int maximoCaracteres = 300;
+
+	private LogPayload() {
+	}
+
+	public static Logger logger(Class<?> classe) {
+		return LoggerFactory.getLogger(PREFIXO_LOGGER + classe.getSimpleName());
+	}
+
+	static void configurar(double taxa, int elementos, int caracteres) {
+		taxaAmostragem = taxa;
+		maximoElementos = elementos;
+		maximoCaracteres = caracteres;
+	}
+
+	public static boolean amostrar() {
+		double taxa = taxaAmostragem;
+		return taxa >= 1.0 || (taxa > 0 && ThreadLocalRandom.current().nextDouble() < taxa);
+	}
+
+	// O texto so e montado quando o log for formatado, o que acontece na
+	// thread que chamou o logger (log4j2.formatMsgAsync=false), enquanto as
+	// entidades ainda estao no estado que se quer registrar.
+	public static Object resumo(Object valor) {
+		return new Resumo(valor);
+	}
+
+	private record Resumo(Object valor) {
+
+		@Override
+		public String toString() {
+			int limite = maximoCaracteres;
+			StringBuilder texto = new StringBuilder(Math.min(limite, 256));
+			if (valor instanceof Collection<?> colecao) {
+				int elementos = maximoElementos;
+				texto.append('[');
+				Iterator<?> iterator = colecao.iterator();
+				for (int i = 0; i < elementos && iterator.hasNext(); i++) {
+					if (i > 0) {
+						texto.append(", ");
+					}
+					acrescentar(texto, iterator.next(), limite);
+				}
+				if (colecao.size() > elementos) {
+					texto.append(", ... +").append(colecao.size() - elementos);
+				}
+				texto.append(']');
+			} else {
+				acrescentar(texto, valor, limite);
+			}
+			return texto.toString();
+		}
+
+		private static void acrescentar(StringBuilder texto, Object valor, int limite) {
+			String descricao = String.valueOf(valor);
+			if (descricao.length() <= limite) {
+				texto.append(descricao);
+			} else {
+				texto.append(descricao, 0, limite).append("...(").append(descricao.length()).append(" caracteres)");
+			}
+		}
+
+	}
+
+}
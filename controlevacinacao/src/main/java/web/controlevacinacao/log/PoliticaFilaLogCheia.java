@@ -0,0 +1,46 @@
+package web.controlevacinacao.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.async.AsyncQueueFullPolicy;
+import org.apache.logging.log4j.core.async.EventRoute;
+import org.apache.logging.log4j.util.PropertiesUtil;
+
+// O que fazer com um evento de log quando a fila (ring buffer) dos AsyncLogger
+// esta cheia. Os eventos de nivel log4j2.discardThreshold ou menos graves sao
+// descartados, em vez de bloquear a thread da requisicao ate abrir espaco. Os
+// mais graves esperam na fila, como na politica padrao. Instanciada pelo log4j
+// (log4j2.asyncQueueFullPolicy no log4j2.component.properties), por isso os
+// contadores sao estaticos.
+public class PoliticaFilaLogCheia implements AsyncQueueFullPolicy {
+
+	private static final AtomicLong descartados = new AtomicLong();
+	private static final AtomicLong aguardaram = new AtomicLong();
+
+	private final Level limiteDescarte = Level.toLevel(
+			PropertiesUtil.getProperties().getStringProperty("log4j2.discardThreshold", "INFO"), Level.INFO);
+
+	@Override
+	public EventRoute getRoute(long backgroundThreadId, Level level) {
+		if (level.isLessSpecificThan(limiteDescarte)) {
+			descartados.incrementAndGet();
+			return EventRoute.DISCARD;
+		}
+		// A propria thread da fila nao pode esperar por espaco nela
+		if (Thread.currentThread().threadId() == backgroundThreadId) {
+			return EventRoute.SYNCHRONOUS;
+		}
+		aguardaram.incrementAndGet();
+		return EventRoute.ENQUEUE;
+	}
+
+	static long getDescartados() {
+		return descartados.get();
+	}
+
+	static long getAguardaram() {
+		return aguardaram.get();
+	}
+
+}
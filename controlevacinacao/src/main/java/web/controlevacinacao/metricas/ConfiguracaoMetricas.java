@@ -0,0 +1,24 @@
+package web.controlevacinacao.metricas;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Os histogramas, percentis e faixas de SLO do http.server.requests ficam no
+// application.properties (management.metrics.distribution.*)
+@Configuration
+public class ConfiguracaoMetricas implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RegistroHandlerInterceptor());
+    }
+
+    // O Spring Boot usa esta convencao no lugar da padrao ao medir as requisicoes
+    @Bean
+    public ConvencaoMetricasRequisicao convencaoMetricasRequisicao() {
+        return new ConvencaoMetricasRequisicao();
+    }
+
+}
@@ -0,0 +1,32 @@
+package web.controlevacinacao.metricas;
+
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+
+// Acrescenta ao http.server.requests as tags que separam as variantes HTMX das
+// de pagina inteira, que tem a mesma URI: o metodo do controller, se a
+// requisicao veio do htmx e a view ou fragmento renderizado. Todas tem poucos
+// valores possiveis (um por metodo/template), entao nao explodem a cardinalidade.
+public class ConvencaoMetricasRequisicao extends DefaultServerRequestObservationConvention {
+
+    private static final String NENHUM = "nenhum";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        HttpServletRequest request = context.getCarrier();
+        return super.getLowCardinalityKeyValues(context).and(
+                KeyValue.of("metodo", atributo(request, RegistroHandlerInterceptor.ATRIBUTO_METODO)),
+                KeyValue.of("htmx", String.valueOf("true".equals(request.getHeader("HX-Request")))),
+                KeyValue.of("fragmento", atributo(request, RegistroHandlerInterceptor.ATRIBUTO_VIEW)));
+    }
+
+    private static String atributo(HttpServletRequest request, String nome) {
+        Object valor = request.getAttribute(nome);
+        return valor != null ? valor.toString() : NENHUM;
+    }
+
+}
@@ -0,0 +1,34 @@
+package web.controlevacinacao.metricas;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Guarda na requisicao qual metodo de controller a atendeu e qual view (ou
+// fragmento) foi renderizada, para as tags das metricas de http.server.requests.
+public class RegistroHandlerInterceptor implements HandlerInterceptor {
+
+    public static final String ATRIBUTO_METODO = RegistroHandlerInterceptor.class.getName() + ".metodo";
+    public static final String ATRIBUTO_VIEW = RegistroHandlerInterceptor.class.getName() + ".view";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            request.setAttribute(ATRIBUTO_METODO,
+                    handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+            ModelAndView modelAndView) {
+        if (modelAndView != null && modelAndView.getViewName() != null) {
+            request.setAttribute(ATRIBUTO_VIEW, modelAndView.getViewName());
+        }
+    }
+
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
+import web.controlevacinacao.unicidade.Cpf;
 
 
 @Entity
@@ -19,7 +20,7 @@ public class Pessoa implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @SequenceGenerator(name="geradorPessoa", sequenceName="pessoa_codigo_seq", allocationSize=1)
+    @SequenceGenerator(name="geradorPessoa", sequenceName="pessoa_codigo_seq", allocationSize=50)
     @GeneratedValue(generator="geradorPessoa", strategy = GenerationType.SEQUENCE)
     private Long codigo;
     @NotBlank(message="O nome da pessoa é obrigatório")
@@ -49,8 +50,10 @@ public class Pessoa implements Serializable {
         return cpf;
     }
 
+    // Gravado so com os digitos, a mesma forma comparada pela restricao UNIQUE
+    // e pelo filtro de CPFs
     public void setCpf(String cpf) {
-        this.cpf = cpf;
+        this.cpf = Cpf.normalizar(cpf);
     }
 
     public Status getStatus() {
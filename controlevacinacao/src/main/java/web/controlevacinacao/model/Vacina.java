@@ -2,6 +2,10 @@ package web.controlevacinacao.model;
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -14,12 +18,14 @@ import jakarta.validation.constraints.NotBlank;
 
 @Entity
 @Table(name="vacina")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vacina")
 public class Vacina implements Serializable {
 
 	private static final long serialVersionUID = 7562368353372595992L;
 
 	@Id
-	@SequenceGenerator(name="gerador5", sequenceName="vacina_codigo_seq", allocationSize=1)
+	@SequenceGenerator(name="gerador5", sequenceName="vacina_codigo_seq", allocationSize=50)
 	@GeneratedValue(generator="gerador5", strategy = GenerationType.SEQUENCE)
 	private Long codigo;
 	@NotBlank(message="O nome da vacina é obrigatório")
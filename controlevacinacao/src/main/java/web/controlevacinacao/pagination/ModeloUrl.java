@@ -0,0 +1,109 @@
+package web.controlevacinacao.pagination;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// A URL da pesquisa atual separada uma unica vez em base (esquema, host e
+// caminho) e parametros. Os links da pagina (numeros das paginas, ordenacao
+// das colunas...) sao montados juntando a base, os parametros que continuam
+// iguais e os que mudam, sem interpretar a URL de novo a cada link.
+//
+// Os parametros sao mantidos como vieram na requisicao, ja codificados. O "+"
+// (espaco dos formularios) vira %20.
+final class ModeloUrl {
+
+	private final String base;
+	private final String[] nomes;
+	private final String[] parametros;
+	private final String completa;
+
+	private ModeloUrl(String base, String[] nomes, String[] parametros) {
+		this.base = base;
+		this.nomes = nomes;
+		this.parametros = parametros;
+		this.completa = parametros.length == 0 ? base : prefixo(base, Set.of(), false);
+	}
+
+	// Parametros sem valor (nome=) sao descartados
+	static ModeloUrl de(HttpServletRequest request) {
+		String base = espacos(request.getRequestURL().toString());
+		String consulta = request.getQueryString();
+		if (consulta == null || consulta.isEmpty()) {
+			return new ModeloUrl(base, new String[0], new String[0]);
+		}
+
+		int quantidade = 1;
+		for (int i = 0; i < consulta.length(); i++) {
+			if (consulta.charAt(i) == '&') {
+				quantidade++;
+			}
+		}
+		String[] nomes = new String[quantidade];
+		String[] parametros = new String[quantidade];
+		int total = 0;
+		int inicio = 0;
+		while (inicio <= consulta.length()) {
+			int fim = consulta.indexOf('&', inicio);
+			if (fim < 0) {
+				fim = consulta.length();
+			}
+			int igual = consulta.indexOf('=', inicio);
+			if (igual >= fim) {
+				igual = -1;
+			}
+			// Vazio ou terminado em "=" nao tem valor
+			if (fim > inicio && igual != fim - 1) {
+				String parametro = espacos(consulta.substring(inicio, fim));
+				nomes[total] = igual < 0 ? parametro : parametro.substring(0, igual - inicio);
+				parametros[total] = parametro;
+				total++;
+			}
+			inicio = fim + 1;
+		}
+		if (total < quantidade) {
+			nomes = Arrays.copyOf(nomes, total);
+			parametros = Arrays.copyOf(parametros, total);
+		}
+		return new ModeloUrl(base, nomes, parametros);
+	}
+
+	String getBase() {
+		return base;
+	}
+
+	String completa() {
+		return completa;
+	}
+
+	// A base informada seguida dos parametros atuais menos os ignorados,
+	// terminando em "?" ou "&", pronta para receber mais parametros
+	String prefixo(String outraBase, Set<String> ignorados) {
+		return prefixo(outraBase, ignorados, true);
+	}
+
+	private String prefixo(String outraBase, Set<String> ignorados, boolean separadorFinal) {
+		StringBuilder url = new StringBuilder(outraBase.length() + 16 * (parametros.length + 1));
+		url.append(outraBase).append('?');
+		boolean primeiro = true;
+		for (int i = 0; i < parametros.length; i++) {
+			if (!ignorados.contains(nomes[i])) {
+				if (!primeiro) {
+					url.append('&');
+				}
+				url.append(parametros[i]);
+				primeiro = false;
+			}
+		}
+		if (separadorFinal && !primeiro) {
+			url.append('&');
+		}
+		return url.toString();
+	}
+
+	private static String espacos(String texto) {
+		return texto.indexOf('+') < 0 ? texto : texto.replace("+", "%20");
+	}
+
+}
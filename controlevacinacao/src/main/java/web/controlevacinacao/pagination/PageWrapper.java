@@ -1,54 +1,51 @@
 package web.controlevacinacao.pagination;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
 import jakarta.servlet.http.HttpServletRequest;
+import web.controlevacinacao.repository.pagination.PaginaCursor;
+import web.controlevacinacao.repository.pagination.PaginaEstimada;
+import web.controlevacinacao.repository.pagination.PaginacaoUtil;
+import web.controlevacinacao.repository.pagination.TipoTotal;
 
 public class PageWrapper<T> {
 
 	private static final Logger logger = LoggerFactory.getLogger(PageWrapper.class);
 
+	// Parametros que cada tipo de link substitui
+	private static final Set<String> PARAMETROS_PAGINACAO = Set.of("page", "cursorValor", "cursorCodigo",
+			"cursorNulo", "cursorAnterior");
+	private static final Set<String> PARAMETROS_ORDENACAO = Set.of("sort", "cursorValor", "cursorCodigo",
+			"cursorNulo", "cursorAnterior");
+	private static final Set<String> PARAMETROS_EXPORTACAO = Set.of("page", "size", "formato", "cursorValor",
+			"cursorCodigo", "cursorNulo", "cursorAnterior");
+
 	private Page<T> pagina;
-	private UriComponentsBuilder uriBuilder;
+	private ModeloUrl modeloUrl;
+	// A URL atual sem os parametros de cada tipo de link, montadas no primeiro uso
+	private String prefixoPaginacao;
+	private String prefixoOrdenacao;
 	private int maximoPaginasMostrar = 5;
 	private int inicio;
 	private int fim;
 
 	public PageWrapper(Page<T> pagina, HttpServletRequest request) {
 		this.pagina = pagina;
-		StringBuffer requestURL = request.getRequestURL();
-		String queryString = removeEmptyQueryParams(request.getQueryString());
-		String httpURL = requestURL.append(queryString != null ? "?" + queryString : "").toString().replaceAll("\\+",
-				"%20");
-		logger.debug("PageWrapper criado para a requestURL: {}, queryString: {} e URL final: {}", requestURL,
-				queryString, httpURL);
-		uriBuilder = UriComponentsBuilder.fromHttpUrl(httpURL);
+		this.modeloUrl = ModeloUrl.de(request);
+		logger.debug("PageWrapper criado para a URL: {}", modeloUrl.completa());
 		definirInicioFimPaginacao();
 	}
 
-	private String removeEmptyQueryParams(String queryString) {
-		logger.debug("Removendo os parâmetros vazios da queryString: {}", queryString);
-		String result = "";
-		if (queryString != null) {
-			if (!queryString.isBlank()) {
-				for (String parameter : queryString.split("&")) {
-					if (parameter.indexOf('=') != parameter.length() - 1) { // achou o = antes da ultima posicao, ou
-																			// seja, tem valor
-						result += (result.isEmpty() ? "" : "&") + parameter;
-					}
-				}
-			}
-			logger.debug("queryString sem parâmetros vazios: {}", result);
-		}
-		return result;
-	}
-
 	public List<T> getConteudo() {
 		return pagina.getContent();
 	}
@@ -73,6 +70,22 @@ public class PageWrapper<T> {
 		return pagina.getTotalPages();
 	}
 
+	public long getTotalRegistros() {
+		return pagina.getTotalElements();
+	}
+
+	public boolean isTotalAproximado() {
+		return getTipoTotal() == TipoTotal.APROXIMADO;
+	}
+
+	public boolean isTotalDesconhecido() {
+		return getTipoTotal() == TipoTotal.DESCONHECIDO;
+	}
+
+	private TipoTotal getTipoTotal() {
+		return (pagina instanceof PaginaEstimada<T> paginaEstimada) ? paginaEstimada.getTipoTotal() : TipoTotal.EXATO;
+	}
+
 	public int getInicio() {
 		return inicio;
 	}
@@ -82,18 +95,101 @@ public class PageWrapper<T> {
 	}
 
 	public String urlAtual() {
-		String url = uriBuilder.build(true).encode().toUriString();
+		String url = modeloUrl.completa();
 		logger.debug("Retornando a URL usada na criação do PageWrapper: {}", url);
 		return url;
 	}
 
 	public String urlParaPagina(int pagina) {
-		logger.debug("Gerando uma nova URL para a pagina {}", pagina);
-		String url = uriBuilder.replaceQueryParam("page", pagina).build(true).encode().toUriString();
+		String url = prefixoPaginacao() + "page=" + pagina;
+		logger.debug("URL gerada para a página {}: {}", pagina, url);
+		return url;
+	}
+
+	// Paginacao por chave: a proxima pagina comeca depois do ultimo registro
+	// mostrado, sem OFFSET, entao custa o mesmo em qualquer profundidade.
+	public String urlProximaPagina() {
+		logger.debug("Gerando a URL por chave para a próxima página");
+		List<T> conteudo = pagina.getContent();
+		if (conteudo.isEmpty()) {
+			return urlParaPagina(pagina.getNumber() + 1);
+		}
+		String url = urlCursor(conteudo.get(conteudo.size() - 1), false);
 		logger.debug("URL gerada: {}", url);
 		return url;
 	}
 
+	public String urlPaginaAnterior() {
+		logger.debug("Gerando a URL por chave para a página anterior");
+		List<T> conteudo = pagina.getContent();
+		if (conteudo.isEmpty()) {
+			return urlUltimaPagina();
+		}
+		String url = urlCursor(conteudo.get(0), true);
+		logger.debug("URL gerada: {}", url);
+		return url;
+	}
+
+	// A ultima pagina e a primeira com a ordem invertida, nao precisa saber o
+	// total de paginas.
+	public String urlUltimaPagina() {
+		String url = prefixoPaginacao() + "cursorAnterior=true";
+		logger.debug("URL gerada por chave para a última página: {}", url);
+		return url;
+	}
+
+	private String urlCursor(T registro, boolean anterior) {
+		Sort.Order ordem = PaginacaoUtil.ordemCursor(pagina.getSort());
+		BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(registro);
+		Object valor = beanWrapper.getPropertyValue(ordem.getProperty());
+		Object codigo = beanWrapper.getPropertyValue(PaginacaoUtil.ATRIBUTO_DESEMPATE);
+		StringBuilder url = new StringBuilder(prefixoPaginacao()).append("cursorCodigo=").append(codificar(codigo));
+		if (!ordem.getProperty().equals(PaginacaoUtil.ATRIBUTO_DESEMPATE)) {
+			if (valor != null) {
+				url.append("&cursorValor=").append(codificar(valor));
+			} else {
+				url.append("&cursorNulo=true");
+			}
+		}
+		if (anterior) {
+			url.append("&cursorAnterior=true");
+		}
+		return url.toString();
+	}
+
+	private static String codificar(Object valor) {
+		return UriUtils.encodeQueryParam(String.valueOf(valor), StandardCharsets.UTF_8);
+	}
+
+	// Usado pelos links de todas as paginas, e montado uma vez por requisicao
+	private String prefixoPaginacao() {
+		if (prefixoPaginacao == null) {
+			prefixoPaginacao = modeloUrl.prefixo(modeloUrl.getBase(), PARAMETROS_PAGINACAO);
+		}
+		return prefixoPaginacao;
+	}
+
+	private String prefixoOrdenacao() {
+		if (prefixoOrdenacao == null) {
+			prefixoOrdenacao = modeloUrl.prefixo(modeloUrl.getBase(), PARAMETROS_ORDENACAO);
+		}
+		return prefixoOrdenacao;
+	}
+
+	// Mesmos filtros e ordenacao da pesquisa atual, sem a paginacao, apontando
+	// para o /exportar do mesmo controller.
+	public String urlExportacao(String formato) {
+		String base = modeloUrl.getBase();
+		String caminho = base.substring(0, base.lastIndexOf('/') + 1) + "exportar";
+		String url = modeloUrl.prefixo(caminho, PARAMETROS_EXPORTACAO) + "formato=" + codificar(formato);
+		logger.debug("URL de exportação gerada: {}", url);
+		return url;
+	}
+
+	public boolean isCursor() {
+		return pagina instanceof PaginaCursor;
+	}
+
 	// Se a propriedade nao tiver uma ordenacao na URL atual, insere uma com a ordem
 	// ASC na URL.
 	// Se a propriedade tiver uma ordenacao na URL atual, inverte essa ordem na URL.
@@ -101,18 +197,9 @@ public class PageWrapper<T> {
 	// essa.
 	// Do jeito que esta nao permite ordenacao por mais de uma coluna.
 	public String urlInvertendoDirecaoOrdem(String propriedade) {
-		logger.debug("Gerando uma nova URL com a ordem da propriedade {} invertida", propriedade);
-		// Nao podemos usar o mesmo uriBuilder ou entao ao carregar uma pagina o sort
-		// inserido em
-		// uma coluna alteraria o uriBuilder que depois sera usado nos numeros da
-		// paginacao o que
-		// colocaria a ordenacao nesses numeros mesmo que nao tenhamos clicado para
-		// ordenar ainda
-		UriComponentsBuilder uriBuilderOrder = UriComponentsBuilder
-				.fromUriString(uriBuilder.build(true).encode().toUriString());
-		String valorSort = String.format("%s,%s", propriedade, inverterDirecaoOrdem(propriedade));
-		String url = uriBuilderOrder.replaceQueryParam("sort", valorSort).build(true).encode().toUriString();
-		logger.debug("URL gerada: {}", url);
+		// O cursor guarda o valor da coluna ordenada, nao serve para outra ordenacao
+		String url = prefixoOrdenacao() + "sort=" + propriedade + "," + inverterDirecaoOrdem(propriedade);
+		logger.debug("URL gerada com a ordem da propriedade {} invertida: {}", propriedade, url);
 		return url;
 	}
 
@@ -165,6 +252,11 @@ public class PageWrapper<T> {
 		int metadeMaximoPaginasMostrar = maximoPaginasMostrar / 2;
 		int totalDePaginas = pagina.getTotalPages();
 		int paginaAtual = pagina.getNumber() + 1;
+		// Com o total aproximado ou desconhecido quem diz se existe proxima pagina
+		// e o registro extra da consulta, nao o total.
+		if (getTipoTotal() != TipoTotal.EXATO) {
+			totalDePaginas = pagina.hasNext() ? Math.max(totalDePaginas, paginaAtual + 1) : paginaAtual;
+		}
 
 		logger.debug("totalDePaginas: {}, paginaAtual: {}", totalDePaginas, paginaAtual);
 
@@ -0,0 +1,58 @@
+package web.controlevacinacao.recursos;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.VersionStrategy;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Define o Cache-Control dos arquivos estaticos antes do ResourceHttpRequestHandler
+// responder. So o nome com o hash atual do conteudo (style-<md5>.css) e imutavel.
+// O nome sem hash, ou com um hash antigo, e servido do mesmo jeito pelo
+// VersionResourceResolver, mas o conteudo dele muda a cada deploy e o navegador
+// precisa revalidar.
+//
+// Um trecho depois de "-" no nome nao basta para saber se ha hash
+// (bootstrap-grid.css): o caminho e versionado quando, sem a versao, o
+// ResourceUrlProvider o transforma de volta no mesmo caminho. O provider guarda
+// as URLs calculadas no cache da cadeia de recursos, o hash nao e recalculado.
+class CacheRecursosInterceptor implements HandlerInterceptor {
+
+    private final VersionStrategy estrategia;
+    private final ObjectProvider<ResourceUrlProvider> resourceUrlProvider;
+    private final String versionado;
+    private final String naoVersionado;
+
+    CacheRecursosInterceptor(VersionStrategy estrategia, ObjectProvider<ResourceUrlProvider> resourceUrlProvider,
+            CacheControl versionado, CacheControl naoVersionado) {
+        this.estrategia = estrategia;
+        this.resourceUrlProvider = resourceUrlProvider;
+        this.versionado = versionado.getHeaderValue();
+        this.naoVersionado = naoVersionado.getHeaderValue();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String caminho = UrlPathHelper.defaultInstance.getLookupPathForRequest(request);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versionado(caminho) ? versionado : naoVersionado);
+        return true;
+    }
+
+    private boolean versionado(String caminho) {
+        if (versionado.equals(naoVersionado)) {
+            return false;
+        }
+        String versao = estrategia.extractVersion(caminho);
+        if (versao == null || versao.isEmpty()) {
+            return false;
+        }
+        String semVersao = estrategia.removeVersion(caminho, versao);
+        return caminho.equals(resourceUrlProvider.getObject().getForLookupPath(semVersao));
+    }
+
+}
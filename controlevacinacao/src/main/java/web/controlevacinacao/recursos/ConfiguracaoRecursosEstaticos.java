@@ -0,0 +1,80 @@
+package web.controlevacinacao.recursos;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.ContentVersionStrategy;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+// Os arquivos de static/css, static/js e static/images sao servidos com o hash
+// do conteudo no nome (style-<md5>.css) e podem ficar no cache do navegador por
+// um ano sem revalidacao: quando o arquivo muda o nome muda junto. Os mesmos
+// arquivos pedidos sem o hash sao revalidados (CacheRecursosInterceptor). Os links
+// @{...} dos templates recebem o nome com o hash pelo ResourceUrlEncodingFilter
+// (spring.web.resources.chain.enabled) e as url(...) dos CSS pelo
+// CssLinkResourceTransformer que o Spring adiciona junto com o hash.
+//
+// Se o build gerou as versoes .br ou .gz do arquivo (maven-antrun-plugin no
+// pom.xml), elas sao enviadas no lugar do original para os navegadores que as
+// aceitam, sem comprimir nada durante a requisicao.
+@Configuration
+public class ConfiguracaoRecursosEstaticos implements WebMvcConfigurer {
+
+    private static final String[] PASTAS = { "css", "js", "images" };
+
+    private final WebProperties.Resources recursos;
+    private final Duration tempoCache;
+    private final ObjectProvider<ResourceUrlProvider> resourceUrlProvider;
+    private final ContentVersionStrategy estrategia = new ContentVersionStrategy();
+
+    public ConfiguracaoRecursosEstaticos(WebProperties webProperties,
+            @Value("${recursos.tempo-cache:365d}") Duration tempoCache,
+            ObjectProvider<ResourceUrlProvider> resourceUrlProvider) {
+        this.recursos = webProperties.getResources();
+        this.tempoCache = tempoCache;
+        this.resourceUrlProvider = resourceUrlProvider;
+    }
+
+    // Sem setCacheControl: o handler nao escreve o Cache-Control, que fica com o
+    // valor definido pelo CacheRecursosInterceptor
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String pasta : PASTAS) {
+            registry.addResourceHandler("/" + pasta + "/**")
+                    .addResourceLocations("classpath:/static/" + pasta + "/")
+                    .resourceChain(recursos.getChain().isCache())
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addVersionStrategy(estrategia, "/**"));
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        String[] caminhos = new String[PASTAS.length];
+        for (int i = 0; i < PASTAS.length; i++) {
+            caminhos[i] = "/" + PASTAS[i] + "/**";
+        }
+        registry.addInterceptor(new CacheRecursosInterceptor(estrategia, resourceUrlProvider, cacheVersionado(),
+                CacheControl.noCache())).addPathPatterns(caminhos);
+    }
+
+    // O devtools zera o spring.web.resources.cache.period e desliga o cache da
+    // cadeia para os arquivos alterados aparecerem, entao nada e guardado
+    private CacheControl cacheVersionado() {
+        Duration periodo = recursos.getCache().getPeriod();
+        if (periodo != null && periodo.isZero()) {
+            return CacheControl.noCache();
+        }
+        return CacheControl.maxAge(tempoCache).cachePublic().immutable();
+    }
+
+}
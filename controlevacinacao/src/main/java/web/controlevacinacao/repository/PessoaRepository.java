@@ -1,10 +1,19 @@
 package web.controlevacinacao.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import web.controlevacinacao.model.Pessoa;
 import web.controlevacinacao.repository.queries.pessoa.PessoaQueries;
 
 public interface PessoaRepository extends JpaRepository<Pessoa, Long>, PessoaQueries{
+
+    // Cada linha e um par {codigo, cpf}, sem carregar as entidades
+    @Query("select p.codigo, p.cpf from Pessoa p where p.cpf in :cpfs")
+    List<Object[]> buscarCodigosPorCpf(@Param("cpfs") Collection<String> cpfs);
     
 }
@@ -0,0 +1,95 @@
+package web.controlevacinacao.repository.carga;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import web.controlevacinacao.csv.EscritorCsv;
+import web.controlevacinacao.model.Pessoa;
+
+// Grava pessoas em massa com o COPY do PostgreSQL, que evita o custo de um
+// INSERT por linha. O JdbcTemplate obtem a conexao da transacao corrente, entao
+// o COPY participa da transacao aberta pelo servico.
+@Repository
+public class CargaPessoaRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CargaPessoaRepository.class);
+
+    // Os codigos seguem o pooled-lo do Hibernate: cada nextval reserva o bloco de
+    // TAMANHO_BLOCO_CODIGOS codigos que comeca no valor devolvido (a V06 fez a
+    // sequencia andar de 50 em 50). O COPY reserva os blocos de uma vez e grava
+    // o codigo de cada linha, entao um lote de 5000 pessoas consome 100 valores da
+    // sequencia e os codigos nao colidem com os blocos reservados pela aplicacao.
+    private static final int TAMANHO_BLOCO_CODIGOS = 50;
+
+    private static final String RESERVA_CODIGOS = "SELECT nextval('pessoa_codigo_seq') FROM generate_series(1, ?)";
+
+    private static final String COPY_PESSOA = "COPY pessoa (codigo, nome, cpf, status) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String SELECT_CPFS = "SELECT cpf FROM pessoa WHERE cpf IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CargaPessoaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long copiar(List<Pessoa> pessoas) {
+        if (pessoas.isEmpty()) {
+            return 0;
+        }
+        int blocos = (pessoas.size() + TAMANHO_BLOCO_CODIGOS - 1) / TAMANHO_BLOCO_CODIGOS;
+        List<Long> iniciosBlocos = jdbcTemplate.queryForList(RESERVA_CODIGOS, Long.class, blocos);
+        StringBuilder csv = new StringBuilder(pessoas.size() * 56);
+        EscritorCsv escritorCsv = new EscritorCsv(csv);
+        try {
+            for (int i = 0; i < pessoas.size(); i++) {
+                Pessoa pessoa = pessoas.get(i);
+                long codigo = iniciosBlocos.get(i / TAMANHO_BLOCO_CODIGOS) + i % TAMANHO_BLOCO_CODIGOS;
+                escritorCsv.escreverRegistro(codigo, pessoa.getNome(), pessoa.getCpf(), pessoa.getStatus());
+            }
+        } catch (IOException e) {
+            // StringBuilder nao lanca IOException
+            throw new IllegalStateException(e);
+        }
+        Long gravados = jdbcTemplate.execute((Connection conexao) -> {
+            CopyManager copyManager = conexao.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                return copyManager.copyIn(COPY_PESSOA, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("Falha ao enviar os dados do COPY", e);
+            }
+        });
+        logger.debug("COPY gravou {} pessoas", gravados);
+        return gravados == null ? 0 : gravados;
+    }
+
+    public long contar() {
+        Long total = jdbcTemplate.queryForObject("SELECT count(*) FROM pessoa", Long.class);
+        return total == null ? 0 : total;
+    }
+
+    // Le todos os CPFs sem carregar a tabela na memoria. O driver so usa um
+    // cursor com o fetch size dentro de uma transacao (sem autocommit), o
+    // chamador deve abrir uma.
+    public void percorrerCpfs(int tamanhoFetch, Consumer<String> consumidor) {
+        jdbcTemplate.query((Connection conexao) -> {
+            PreparedStatement ps = conexao.prepareStatement(SELECT_CPFS);
+            ps.setFetchSize(tamanhoFetch);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.accept(rs.getString(1)));
+    }
+
+}
@@ -0,0 +1,61 @@
+package web.controlevacinacao.repository.pagination;
+
+// Cursor da paginacao por chave (keyset/seek). Guarda o valor do atributo de
+// ordenacao e o codigo do ultimo registro visto para que a proxima pagina seja
+// buscada com um WHERE em vez de um OFFSET. Os nomes dos atributos comecam com
+// "cursor" para nao colidir com os parametros dos filtros (codigo, nome...).
+public class CursorPaginacao {
+
+	private String cursorValor;
+	private Long cursorCodigo;
+	// true quando o atributo de ordenacao do ultimo registro visto e nulo, o que
+	// nao pode ser passado em cursorValor
+	private boolean cursorNulo;
+	// true quando a navegacao e para tras (pagina anterior ou ultima pagina)
+	private boolean cursorAnterior;
+
+	public String getCursorValor() {
+		return cursorValor;
+	}
+
+	public void setCursorValor(String cursorValor) {
+		this.cursorValor = cursorValor;
+	}
+
+	public Long getCursorCodigo() {
+		return cursorCodigo;
+	}
+
+	public void setCursorCodigo(Long cursorCodigo) {
+		this.cursorCodigo = cursorCodigo;
+	}
+
+	public boolean isCursorNulo() {
+		return cursorNulo;
+	}
+
+	public void setCursorNulo(boolean cursorNulo) {
+		this.cursorNulo = cursorNulo;
+	}
+
+	public boolean isCursorAnterior() {
+		return cursorAnterior;
+	}
+
+	public void setCursorAnterior(boolean cursorAnterior) {
+		this.cursorAnterior = cursorAnterior;
+	}
+
+	// Sem codigo e indo para tras significa "a partir do fim", ou seja, a ultima
+	// pagina.
+	public boolean isInformado() {
+		return cursorCodigo != null || cursorAnterior;
+	}
+
+	@Override
+	public String toString() {
+		return "cursorValor: " + cursorValor + "\ncursorCodigo: " + cursorCodigo + "\ncursorNulo: " + cursorNulo
+				+ "\ncursorAnterior: " + cursorAnterior;
+	}
+
+}
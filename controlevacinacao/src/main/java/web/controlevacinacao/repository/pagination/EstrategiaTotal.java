@@ -0,0 +1,14 @@
+package web.controlevacinacao.repository.pagination;
+
+// Como as pesquisas paginadas obtem o total de registros.
+// EXATO: faz o COUNT(*) com os mesmos filtros da pesquisa.
+// SEM_TOTAL: nao conta, so sabe se existe proxima pagina (como um Slice).
+// ESTIMADO: conta quando a tabela e pequena; acima do limite usa a estimativa
+// do pg_class.reltuples (pesquisa sem filtros) ou nao conta (com filtros).
+public enum EstrategiaTotal {
+
+	EXATO,
+	SEM_TOTAL,
+	ESTIMADO;
+
+}
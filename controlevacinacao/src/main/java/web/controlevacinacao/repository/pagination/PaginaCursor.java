@@ -0,0 +1,32 @@
+package web.controlevacinacao.repository.pagination;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+// Pagina obtida com a paginacao por chave. O numero da pagina nao e conhecido,
+// entao primeira/ultima sao decididas pelo que a consulta encontrou antes e
+// depois do cursor.
+public class PaginaCursor<T> extends PaginaEstimada<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final boolean temAnterior;
+
+	public PaginaCursor(List<T> conteudo, Pageable pageable, long total, TipoTotal tipoTotal, boolean temAnterior,
+			boolean temProxima) {
+		super(conteudo, pageable, total, tipoTotal, temProxima);
+		this.temAnterior = temAnterior;
+	}
+
+	@Override
+	public boolean isFirst() {
+		return !temAnterior;
+	}
+
+	@Override
+	public boolean hasPrevious() {
+		return temAnterior;
+	}
+
+}
@@ -0,0 +1,48 @@
+package web.controlevacinacao.repository.pagination;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+// Pagina cujo total pode ser exato, aproximado ou desconhecido. Se existe uma
+// proxima pagina e decidido pelo registro extra buscado na consulta e nao pelo
+// total, entao a navegacao funciona mesmo sem o COUNT(*).
+public class PaginaEstimada<T> extends PageImpl<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final TipoTotal tipoTotal;
+	private final boolean temProxima;
+
+	public PaginaEstimada(List<T> conteudo, Pageable pageable, long total, TipoTotal tipoTotal, boolean temProxima) {
+		super(conteudo, pageable, totalParaPageImpl(conteudo, pageable, total, tipoTotal, temProxima));
+		this.tipoTotal = tipoTotal;
+		this.temProxima = temProxima;
+	}
+
+	// Sem total conhecido consideramos que existe no maximo uma pagina depois
+	// da atual, o suficiente para a numeracao da paginacao.
+	private static long totalParaPageImpl(List<?> conteudo, Pageable pageable, long total, TipoTotal tipoTotal,
+			boolean temProxima) {
+		if (tipoTotal == TipoTotal.DESCONHECIDO) {
+			return pageable.getOffset() + conteudo.size() + (temProxima ? 1 : 0);
+		}
+		return total;
+	}
+
+	public TipoTotal getTipoTotal() {
+		return tipoTotal;
+	}
+
+	@Override
+	public boolean isLast() {
+		return !temProxima;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return temProxima;
+	}
+
+}
@@ -1,62 +1,242 @@
 package web.controlevacinacao.repository.pagination;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Order;
-import jakarta.persistence.criteria.Root;
 
 public class PaginacaoUtil {
 	
 	private static final Logger logger = LoggerFactory.getLogger(PaginacaoUtil.class);
 
-	public static void prepararIntervalo(TypedQuery<?> typedQuery, Pageable pageable) {
+	// Atributo usado para desempatar registros com o mesmo valor na coluna de
+	// ordenacao. Precisa ser unico para que o cursor aponte para um unico registro.
+	public static final String ATRIBUTO_DESEMPATE = "codigo";
+
+	// Busca um registro a mais que o tamanho da pagina para saber se existe
+	// proxima pagina sem depender do total. Com cursor a consulta sempre comeca
+	// no primeiro registro depois dele.
+	public static void prepararIntervalo(TypedQuery<?> typedQuery, Pageable pageable, CursorPaginacao cursor) {
 		int paginaAtual = pageable.getPageNumber();
 		int totalRegistrosPorPagina = pageable.getPageSize();
-		int primeiroRegistro = paginaAtual * totalRegistrosPorPagina;
+		int primeiroRegistro = cursor.isInformado() ? 0 : paginaAtual * totalRegistrosPorPagina;
 		logger.debug("Filtrando a página {}, registros entre {} e {}", paginaAtual, primeiroRegistro, primeiroRegistro + totalRegistrosPorPagina);
 		typedQuery.setFirstResult(primeiroRegistro);
-		typedQuery.setMaxResults(totalRegistrosPorPagina);
+		typedQuery.setMaxResults(totalRegistrosPorPagina + 1);
 	}
 	
-	public static void prepararOrdem(Root<?> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder builder, Pageable pageable) {
-		String atributo;
-		Sort sort = pageable.getSort();
-		Order order;
-		List<Order> ordenacoes = new ArrayList<>();
+	// Monta o order by da pesquisa. Os atributos vem da URL e vao direto para o
+	// HQL, entao so os permitidos pela entidade sao aceitos. O codigo entra no
+	// fim como desempate, na direcao da primeira ordenacao, como em
+	// clausulaOrdemCursor: um cursor tirado de uma pagina por offset continua
+	// exatamente na mesma sequencia, mesmo com valores repetidos na coluna.
+	public static String clausulaOrdem(String alias, Sort sort, Set<String> atributosPermitidos) {
+		StringBuilder ordem = new StringBuilder();
+		boolean temDesempate = false;
 		if (sort != null && !sort.isEmpty()) {
 			for (Sort.Order o : sort) {
 				logger.debug("Ordenando o resultado da pesquisa por {}, {}", o.getProperty(), o.getDirection());
-			    atributo = o.getProperty();
-			    order = o.isAscending() ? builder.asc(root.get(atributo)) : builder.desc(root.get(atributo));
-			    ordenacoes.add(order);
+				validarAtributo(o.getProperty(), atributosPermitidos);
+				ordem.append(ordem.isEmpty() ? " order by " : ", ").append(alias).append('.').append(o.getProperty())
+						.append(o.isAscending() ? " asc" : " desc");
+				temDesempate |= o.getProperty().equals(ATRIBUTO_DESEMPATE);
 			}
 		}
-		criteriaQuery.orderBy(ordenacoes);
+		if (!temDesempate) {
+			ordem.append(ordem.isEmpty() ? " order by " : ", ").append(alias).append('.').append(ATRIBUTO_DESEMPATE)
+					.append(ordemCursor(sort).isAscending() ? " asc" : " desc");
+		}
+		return ordem.toString();
 	}
-	
-	//A ideia era boa, mas não funciona.
-	//O JPA reclama pq a lista de predicados foi criada usando outra Root que não a 
-	// criada dentro do método.
-	//Não encontrei uma maneira de deixar isso genérico, tem que repetir em todo lugar
-	// que usar paginação
-	// public static <T> long getTotalRegistros(Class<T> clazz, Predicate[] predicateArray, CriteriaBuilder builder, EntityManager manager) {
-	// 	logger.info("Calculando o total de registros que o filtro retornará.");
-	// 	CriteriaQuery<Long> criteriaQuery = builder.createQuery(Long.class);
-	// 	Root<T> root = criteriaQuery.from(clazz);
-	// 	criteriaQuery.select(builder.count(root));
-	// 	criteriaQuery.where(predicateArray);
-	// 	TypedQuery<Long> typedQueryTotal = manager.createQuery(criteriaQuery);
-	// 	long totalRegistros = typedQueryTotal.getSingleResult();
-	// 	logger.info("O filtro retornará {} registros.", totalRegistros);	
-	// 	return totalRegistros;
-	// }
-}
+
+	// Na paginacao por chave so a primeira ordenacao e considerada (a tela so
+	// permite ordenar por uma coluna) e o codigo entra como desempate.
+	public static Sort.Order ordemCursor(Sort sort) {
+		Sort.Order ordem = (sort != null && !sort.isEmpty()) ? sort.iterator().next() : null;
+		return ordem != null ? ordem : Sort.Order.asc(ATRIBUTO_DESEMPATE);
+	}
+
+	// A ordem da consulta e invertida quando navegamos para tras, o resultado e
+	// desinvertido em criarPagina.
+	public static String clausulaOrdemCursor(String alias, Sort sort, CursorPaginacao cursor,
+			Set<String> atributosPermitidos) {
+		Sort.Order ordem = ordemCursor(sort);
+		validarAtributo(ordem.getProperty(), atributosPermitidos);
+		String direcao = ordem.isAscending() != cursor.isCursorAnterior() ? " asc" : " desc";
+		logger.debug("Ordenando o resultado da pesquisa por chave por {},{}", ordem.getProperty(), direcao);
+		String clausula = " order by " + alias + "." + ordem.getProperty() + direcao;
+		if (!ordem.getProperty().equals(ATRIBUTO_DESEMPATE)) {
+			clausula += ", " + alias + "." + ATRIBUTO_DESEMPATE + direcao;
+		}
+		return clausula;
+	}
+
+	// Sem codigo o cursor so indica a ultima pagina, e sem valor (nem a marca de
+	// valor nulo) nao da para continuar de onde parou em uma ordenacao que nao e
+	// pelo codigo.
+	public static boolean temCondicaoCursor(Sort sort, CursorPaginacao cursor) {
+		if (cursor.getCursorCodigo() == null) {
+			return false;
+		}
+		if (ordemCursor(sort).getProperty().equals(ATRIBUTO_DESEMPATE) || cursor.getCursorValor() != null
+				|| cursor.isCursorNulo()) {
+			return true;
+		}
+		logger.warn("Cursor sem valor para o atributo {}, ignorando o cursor", ordemCursor(sort).getProperty());
+		return false;
+	}
+
+	// Gera (atributo, codigo) > (:cursorValor, :cursorCodigo), ou com < quando a
+	// ordem efetiva da consulta e decrescente. A comparacao de linhas usa direto o
+	// indice (status, atributo, codigo) da V09.
+	//
+	// Uma comparacao com nulo nunca e verdadeira, entao os registros com o
+	// atributo nulo ficam de fora dela. O PostgreSQL os ordena depois de todos os
+	// valores na ordem crescente e antes na decrescente. Com o cursor em um
+	// registro nulo so o codigo separa os nulos entre si, e a passagem entre os
+	// nulos e os valores e feita pela consulta de condicaoContinuacao.
+	// Retorna null quando nao ha um cursor a aplicar (primeira ou ultima pagina).
+	public static String condicaoCursor(String alias, Sort sort, CursorPaginacao cursor,
+			Set<String> atributosPermitidos) {
+		if (!temCondicaoCursor(sort, cursor)) {
+			return null;
+		}
+		Sort.Order ordem = ordemCursor(sort);
+		validarAtributo(ordem.getProperty(), atributosPermitidos);
+		String operador = ordem.isAscending() != cursor.isCursorAnterior() ? " > " : " < ";
+		String codigo = alias + "." + ATRIBUTO_DESEMPATE;
+		if (ordem.getProperty().equals(ATRIBUTO_DESEMPATE)) {
+			return codigo + operador + ":cursorCodigo";
+		}
+		String atributo = alias + "." + ordem.getProperty();
+		if (cursor.isCursorNulo()) {
+			return "(" + atributo + " is null and " + codigo + operador + ":cursorCodigo)";
+		}
+		return "(" + atributo + ", " + codigo + ")" + operador + "(:cursorValor, :cursorCodigo)";
+	}
+
+	// Registros que vem depois da fronteira entre valores e nulos que a condicao
+	// do cursor nao alcanca: os nulos, quando o cursor esta em um valor e a ordem
+	// efetiva e crescente, ou os valores, quando o cursor esta em um nulo e a
+	// ordem e decrescente. A consulta com esta condicao (e a mesma ordem) so e
+	// feita quando a do cursor nao preencheu a pagina. Retorna null quando nao ha
+	// nada depois da fronteira.
+	public static String condicaoContinuacao(String alias, Sort sort, CursorPaginacao cursor,
+			Set<String> atributosPermitidos) {
+		if (!temCondicaoCursor(sort, cursor)) {
+			return null;
+		}
+		Sort.Order ordem = ordemCursor(sort);
+		if (ordem.getProperty().equals(ATRIBUTO_DESEMPATE)) {
+			return null;
+		}
+		validarAtributo(ordem.getProperty(), atributosPermitidos);
+		boolean crescente = ordem.isAscending() != cursor.isCursorAnterior();
+		if (crescente == cursor.isCursorNulo()) {
+			return null;
+		}
+		return alias + "." + ordem.getProperty() + (crescente ? " is null" : " is not null");
+	}
+
+	// O valor do cursor chega como texto e e convertido para o tipo do atributo
+	// ordenado.
+	public static void vincularCursor(TypedQuery<?> typedQuery, EntityManager em, Class<?> entidade, Sort sort,
+			CursorPaginacao cursor) {
+		if (!temCondicaoCursor(sort, cursor)) {
+			return;
+		}
+		Sort.Order ordem = ordemCursor(sort);
+		logger.debug("Aplicando o cursor {} = {}, {} = {}", ordem.getProperty(), cursor.getCursorValor(),
+				ATRIBUTO_DESEMPATE, cursor.getCursorCodigo());
+		typedQuery.setParameter("cursorCodigo", cursor.getCursorCodigo());
+		if (!ordem.getProperty().equals(ATRIBUTO_DESEMPATE) && !cursor.isCursorNulo()) {
+			Class<?> tipo = em.getMetamodel().entity(entidade).getAttribute(ordem.getProperty()).getJavaType();
+			typedQuery.setParameter("cursorValor",
+					DefaultConversionService.getSharedInstance().convert(cursor.getCursorValor(), tipo));
+		}
+	}
+
+	// Parte da chave das consultas compiladas que depende do cursor: se ele
+	// inverte a ordem, se acrescenta a condicao no where e se ela e a de nulos.
+	public static String formaCursor(Sort sort, CursorPaginacao cursor) {
+		if (!cursor.isInformado()) {
+			return "offset";
+		}
+		String forma = cursor.isCursorAnterior() ? "anterior" : "proxima";
+		if (!temCondicaoCursor(sort, cursor)) {
+			return forma;
+		}
+		return forma + (cursor.isCursorNulo() && !ordemCursor(sort).getProperty().equals(ATRIBUTO_DESEMPATE)
+				? "+condicao-nulo" : "+condicao");
+	}
+
+	private static void validarAtributo(String atributo, Set<String> atributosPermitidos) {
+		if (!atributosPermitidos.contains(atributo)) {
+			throw new IllegalArgumentException("Não é possível ordenar a pesquisa por " + atributo);
+		}
+	}
+
+	// Remove o registro extra buscado por prepararIntervalo e desinverte o
+	// resultado quando a navegacao por chave foi para tras.
+	public static <T> PaginaEstimada<T> criarPagina(List<T> resultado, Pageable pageable, CursorPaginacao cursor,
+			long totalRegistros, TipoTotal tipoTotal) {
+		boolean temMais = resultado.size() > pageable.getPageSize();
+		List<T> conteudo = new ArrayList<>(temMais ? resultado.subList(0, pageable.getPageSize()) : resultado);
+		if (!cursor.isInformado()) {
+			logger.debug("Página com {} registros, próxima: {}, total {}: {}", conteudo.size(), temMais, tipoTotal,
+					totalRegistros);
+			return new PaginaEstimada<>(conteudo, pageable, totalRegistros, tipoTotal, temMais);
+		}
+		boolean temAnterior;
+		boolean temProxima;
+		if (cursor.isCursorAnterior()) {
+			Collections.reverse(conteudo);
+			temAnterior = temMais;
+			temProxima = cursor.getCursorCodigo() != null;
+		} else {
+			temAnterior = cursor.getCursorCodigo() != null;
+			temProxima = temMais;
+		}
+		logger.debug("Página por chave com {} registros, anterior: {}, próxima: {}", conteudo.size(), temAnterior,
+				temProxima);
+		return new PaginaCursor<>(conteudo, pageable, totalRegistros, tipoTotal, temAnterior, temProxima);
+	}
+
+	// Estimativa do numero de linhas da tabela mantida pelo ANALYZE/autovacuum.
+	// Retorna -1 quando a tabela ainda nao foi analisada.
+	public static long estimarTotalTabela(EntityManager em, String tabela) {
+		List<?> resultado = em
+				.createNativeQuery("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE relname = :tabela AND relkind = 'r'")
+				.setParameter("tabela", tabela).getResultList();
+		long estimativa = resultado.isEmpty() ? -1 : ((Number) resultado.get(0)).longValue();
+		logger.debug("Estimativa de registros da tabela {}: {}", tabela, estimativa);
+		return estimativa;
+	}
+
+	// Com ESTIMADO o COUNT(*) so e feito quando a estimativa da tabela esta
+	// abaixo do limite. Acima dele a estimativa so serve como total quando a
+	// pesquisa nao tem filtros, senao ficaria longe do numero real.
+	public static TipoTotal escolherTipoTotal(EstrategiaTotal estrategia, long estimativa, long limiteEstimativa,
+			boolean filtrado) {
+		TipoTotal tipoTotal;
+		if (estrategia == EstrategiaTotal.SEM_TOTAL) {
+			tipoTotal = TipoTotal.DESCONHECIDO;
+		} else if (estrategia == EstrategiaTotal.ESTIMADO && estimativa > limiteEstimativa) {
+			tipoTotal = filtrado ? TipoTotal.DESCONHECIDO : TipoTotal.APROXIMADO;
+		} else {
+			tipoTotal = TipoTotal.EXATO;
+		}
+		logger.debug("Total da pesquisa com a estratégia {}: {}", estrategia, tipoTotal);
+		return tipoTotal;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package web.controlevacinacao.repository.pagination;
+
+public enum TipoTotal {
+
+	EXATO,
+	APROXIMADO,
+	DESCONHECIDO;
+
+}
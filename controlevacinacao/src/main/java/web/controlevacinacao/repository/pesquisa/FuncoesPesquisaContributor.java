@@ -0,0 +1,24 @@
+package web.controlevacinacao.repository.pesquisa;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+// Registra no Hibernate as funcoes usadas pelos filtros de texto que nao
+// existem no JPA. Carregado pelo arquivo
+// META-INF/services/org.hibernate.boot.model.FunctionContributor
+public class FuncoesPesquisaContributor implements FunctionContributor {
+
+	public static final String CONTEM_PALAVRAS = "contem_palavras";
+
+	@Override
+	public void contributeFunctions(FunctionContributions functionContributions) {
+		BasicType<Boolean> booleano = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+				.resolve(StandardBasicTypes.BOOLEAN);
+		// A expressao precisa ser igual a dos indices da V05 para que eles sejam usados
+		functionContributions.getFunctionRegistry().registerPattern(CONTEM_PALAVRAS,
+				"(to_tsvector('portuguese', coalesce(?1, '')) @@ plainto_tsquery('portuguese', ?2))", booleano);
+	}
+
+}
@@ -0,0 +1,13 @@
+package web.controlevacinacao.repository.pesquisa;
+
+// Como os filtros de texto das pesquisas sao aplicados.
+// CONTEM: lower(coluna) LIKE '%texto%', atendido pelos indices trigram (V04).
+// PALAVRAS: busca textual do PostgreSQL (to_tsvector @@ plainto_tsquery),
+// atendida pelos indices da V05. Encontra as palavras mesmo fora de ordem e
+// com variacoes (vacina/vacinas), mas nao trechos de palavras.
+public enum ModoBusca {
+
+	CONTEM,
+	PALAVRAS;
+
+}
@@ -0,0 +1,42 @@
+package web.controlevacinacao.repository.pesquisa;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class PesquisaTextoUtil {
+
+	private static final Logger logger = LoggerFactory.getLogger(PesquisaTextoUtil.class);
+
+	private static final char ESCAPE = '!';
+
+	// A condicao gerada tem a mesma expressao dos indices das migracoes V04 e
+	// V05, senao o PostgreSQL volta a ler a tabela inteira.
+	public static String condicao(String atributo, String parametro, ModoBusca modoBusca) {
+		if (modoBusca == ModoBusca.PALAVRAS) {
+			return FuncoesPesquisaContributor.CONTEM_PALAVRAS + "(" + atributo + ", :" + parametro + ") = true";
+		}
+		return "lower(" + atributo + ") like :" + parametro + " escape '" + ESCAPE + "'";
+	}
+
+	public static String valorParametro(String texto, ModoBusca modoBusca) {
+		logger.debug("Filtrando por {} com o modo {}", texto, modoBusca);
+		if (modoBusca == ModoBusca.PALAVRAS) {
+			return texto;
+		}
+		return "%" + escaparLike(texto.toLowerCase()) + "%";
+	}
+
+	// Sem isso um % ou _ digitado no filtro viraria um coringa do LIKE
+	private static String escaparLike(String texto) {
+		StringBuilder escapado = new StringBuilder(texto.length() + 4);
+		for (int i = 0; i < texto.length(); i++) {
+			char c = texto.charAt(i);
+			if (c == '%' || c == '_' || c == ESCAPE) {
+				escapado.append(ESCAPE);
+			}
+			escapado.append(c);
+		}
+		return escapado.toString();
+	}
+
+}
@@ -0,0 +1,47 @@
+package web.controlevacinacao.repository.queries;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
+import web.controlevacinacao.repository.pagination.PaginacaoUtil;
+
+// Guarda as consultas ja montadas por formato: quais filtros foram
+// preenchidos, a ordenacao e a forma do cursor. Os valores dos filtros nao
+// entram na chave, eles sao parametros da consulta.
+public class CacheConsultas {
+
+	private static final Logger logger = LoggerFactory.getLogger(CacheConsultas.class);
+
+	// Os formatos possiveis sao poucos, mas o Sort aceita atributos repetidos
+	// vindos da URL, entao o cache tem um limite para nao crescer sem controle.
+	private static final int MAXIMO_CONSULTAS = 256;
+
+	private final Map<String, ConsultaPesquisa> consultas = new ConcurrentHashMap<>();
+
+	public ConsultaPesquisa obter(String chave, Supplier<ConsultaPesquisa> compilador) {
+		ConsultaPesquisa consulta = consultas.get(chave);
+		if (consulta == null) {
+			consulta = compilador.get();
+			logger.debug("Consulta compilada para a chave {}: {}", chave, consulta);
+			if (consultas.size() < MAXIMO_CONSULTAS) {
+				consultas.putIfAbsent(chave, consulta);
+			}
+		}
+		return consulta;
+	}
+
+	public static String chave(Sort sort, CursorPaginacao cursor, boolean... filtrosPreenchidos) {
+		StringBuilder chave = new StringBuilder();
+		for (boolean preenchido : filtrosPreenchidos) {
+			chave.append(preenchido ? '1' : '0');
+		}
+		return chave.append('|').append(PaginacaoUtil.formaCursor(sort, cursor)).append('|').append(sort).toString();
+	}
+
+}
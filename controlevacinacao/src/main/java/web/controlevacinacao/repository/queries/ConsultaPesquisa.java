@@ -0,0 +1,42 @@
+package web.controlevacinacao.repository.queries;
+
+// HQL de uma pesquisa paginada ja montado para um formato de filtro e
+// ordenacao. A cada requisicao so os parametros sao vinculados, e como o texto
+// e sempre o mesmo o Hibernate reaproveita a interpretacao da consulta e o
+// driver reaproveita o prepared statement no servidor.
+public class ConsultaPesquisa {
+
+	private final String hqlPagina;
+	private final String hqlTotal;
+	// Completa a pagina depois da fronteira entre valores e nulos do atributo
+	// ordenado (PaginacaoUtil.condicaoContinuacao), null quando nao se aplica
+	private final String hqlContinuacao;
+
+	public ConsultaPesquisa(String hqlPagina, String hqlTotal) {
+		this(hqlPagina, hqlTotal, null);
+	}
+
+	public ConsultaPesquisa(String hqlPagina, String hqlTotal, String hqlContinuacao) {
+		this.hqlPagina = hqlPagina;
+		this.hqlTotal = hqlTotal;
+		this.hqlContinuacao = hqlContinuacao;
+	}
+
+	public String getHqlPagina() {
+		return hqlPagina;
+	}
+
+	public String getHqlTotal() {
+		return hqlTotal;
+	}
+
+	public String getHqlContinuacao() {
+		return hqlContinuacao;
+	}
+
+	@Override
+	public String toString() {
+		return "hqlPagina: " + hqlPagina + "\nhqlTotal: " + hqlTotal + "\nhqlContinuacao: " + hqlContinuacao;
+	}
+
+}
@@ -1,13 +1,30 @@
 package web.controlevacinacao.repository.queries.pessoa;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import web.controlevacinacao.filter.PessoaFilter;
 import web.controlevacinacao.model.Pessoa;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
 
 public interface PessoaQueries {
 
 	Page<Pessoa> pesquisar(PessoaFilter filtro, Pageable pageable);
+
+	Page<Pessoa> pesquisar(PessoaFilter filtro, Pageable pageable, CursorPaginacao cursor);
+
+	// Todos os registros, ativos e inativos, em blocos pela paginacao por chave,
+	// sem contar o total. Usado na listagem com rolagem infinita.
+	Page<Pessoa> listar(Pageable pageable, CursorPaginacao cursor);
+
+	// Registros do filtro lidos aos poucos por um cursor do banco. Deve ser
+	// chamado dentro de uma transacao e o Stream precisa ser fechado.
+	Stream<Pessoa> exportar(PessoaFilter filtro, Sort sort);
+
+	void salvarEmLote(Collection<Pessoa> pessoas);
 	
 }
\ No newline at end of file
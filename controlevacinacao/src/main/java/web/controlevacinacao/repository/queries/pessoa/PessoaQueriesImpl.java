@@ -1,91 +1,229 @@
 package web.controlevacinacao.repository.queries.pessoa;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.util.StringUtils;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
-import jakarta.persistence.criteria.Root;
 import web.controlevacinacao.filter.PessoaFilter;
 import web.controlevacinacao.model.Pessoa;
 import web.controlevacinacao.model.Status;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
+import web.controlevacinacao.repository.pagination.EstrategiaTotal;
 import web.controlevacinacao.repository.pagination.PaginacaoUtil;
+import web.controlevacinacao.repository.pagination.TipoTotal;
+import web.controlevacinacao.repository.pesquisa.ModoBusca;
+import web.controlevacinacao.repository.pesquisa.PesquisaTextoUtil;
+import web.controlevacinacao.repository.queries.CacheConsultas;
+import web.controlevacinacao.repository.queries.ConsultaPesquisa;
+import web.controlevacinacao.unicidade.Cpf;
 
 
 public class PessoaQueriesImpl implements PessoaQueries {
 
     private static final Logger logger = LoggerFactory.getLogger(PessoaQueriesImpl.class);
 
+    private static final Set<String> ATRIBUTOS_ORDENACAO = Set.of("codigo", "nome", "cpf");
+
+    private final CacheConsultas cacheConsultas = new CacheConsultas();
+
     @PersistenceContext
     private EntityManager em;
 
+    @Value("${paginacao.estrategia-total:EXATO}")
+    private EstrategiaTotal estrategiaTotal;
+
+    @Value("${paginacao.limite-estimativa:100000}")
+    private long limiteEstimativa;
+
+    @Value("${pesquisa.modo-busca:CONTEM}")
+    private ModoBusca modoBusca;
+
+    @Value("${exportacao.tamanho-fetch:1000}")
+    private int tamanhoFetch;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}")
+    private int tamanhoLote;
+
     @Override
     public Page<Pessoa> pesquisar(PessoaFilter filtro, Pageable pageable) {
-        CriteriaBuilder builder = em.getCriteriaBuilder();
-        CriteriaQuery<Pessoa> criteriaQuery = builder.createQuery(Pessoa.class);
-        Root<Pessoa> p = criteriaQuery.from(Pessoa.class);
-        TypedQuery<Pessoa> typedQuery;
-        List<Predicate> predicateList = new ArrayList<>();
-        List<Predicate> predicateListTotal = new ArrayList<>();
-        Predicate[] predArray;
-        Predicate[] predArrayTotal;
-        if (filtro.getCodigo() != null) {
-            predicateList.add(builder.equal(p.<Long>get("codigo"), filtro.getCodigo()));
+        return pesquisar(filtro, pageable, new CursorPaginacao());
+    }
+
+    @Override
+    public Page<Pessoa> pesquisar(PessoaFilter filtro, Pageable pageable, CursorPaginacao cursor) {
+        boolean temCodigo = filtro.getCodigo() != null;
+        boolean temNome = StringUtils.hasText(filtro.getNome());
+        boolean temCpf = StringUtils.hasText(filtro.getCpf());
+        boolean filtrado = temCodigo || temNome || temCpf;
+        Sort sort = pageable.getSort();
+        String chave = CacheConsultas.chave(sort, cursor, true, temCodigo, temNome, temCpf);
+        ConsultaPesquisa consulta = cacheConsultas.obter(chave,
+                () -> compilar(true, sort, cursor, temCodigo, temNome, temCpf));
+
+        List<Pessoa> pessoas = buscar(consulta, filtro, true, pageable, cursor);
+
+        long estimativa = estrategiaTotal == EstrategiaTotal.ESTIMADO ? PaginacaoUtil.estimarTotalTabela(em, "pessoa")
+                : -1;
+        TipoTotal tipoTotal = PaginacaoUtil.escolherTipoTotal(estrategiaTotal, estimativa, limiteEstimativa, filtrado);
+        long totalPessoas = -1;
+        if (tipoTotal == TipoTotal.EXATO) {
+            totalPessoas = contar(consulta, filtro);
+        } else if (tipoTotal == TipoTotal.APROXIMADO) {
+            totalPessoas = estimativa;
         }
-        if (StringUtils.hasText(filtro.getNome())) {
-            predicateList.add(builder.like(builder.lower(p.<String>get("nome")),
-                    "%" + filtro.getNome().toLowerCase() + "%"));
+        return PaginacaoUtil.criarPagina(pessoas, pageable, cursor, totalPessoas, tipoTotal);
+    }
+
+    @Override
+    public Page<Pessoa> listar(Pageable pageable, CursorPaginacao cursor) {
+        Sort sort = pageable.getSort();
+        String chave = CacheConsultas.chave(sort, cursor, false, false, false, false);
+        ConsultaPesquisa consulta = cacheConsultas.obter(chave,
+                () -> compilar(false, sort, cursor, false, false, false));
+        List<Pessoa> pessoas = buscar(consulta, new PessoaFilter(), false, pageable, cursor);
+        return PaginacaoUtil.criarPagina(pessoas, pageable, cursor, -1, TipoTotal.DESCONHECIDO);
+    }
+
+    private List<Pessoa> buscar(ConsultaPesquisa consulta, PessoaFilter filtro, boolean somenteAtivos, Pageable pageable,
+            CursorPaginacao cursor) {
+        TypedQuery<Pessoa> typedQuery = em.createQuery(consulta.getHqlPagina(), Pessoa.class);
+        vincularFiltro(typedQuery, filtro, somenteAtivos);
+        PaginacaoUtil.vincularCursor(typedQuery, em, Pessoa.class, pageable.getSort(), cursor);
+        PaginacaoUtil.prepararIntervalo(typedQuery, pageable, cursor);
+        List<Pessoa> resultado = typedQuery.getResultList();
+        int faltam = pageable.getPageSize() + 1 - resultado.size();
+        if (consulta.getHqlContinuacao() == null || faltam <= 0) {
+            return resultado;
         }
-        if (StringUtils.hasText(filtro.getCpf())) {
-            predicateList.add(builder.like(builder.lower(p.<String>get("cpf")),
-                    "%" + filtro.getCpf().toLowerCase() + "%"));
+        // A pagina chegou na fronteira entre valores e nulos e continua do outro lado
+        TypedQuery<Pessoa> continuacao = em.createQuery(consulta.getHqlContinuacao(), Pessoa.class);
+        vincularFiltro(continuacao, filtro, somenteAtivos);
+        continuacao.setMaxResults(faltam);
+        List<Pessoa> completo = new ArrayList<>(resultado);
+        completo.addAll(continuacao.getResultList());
+        return completo;
+    }
+
+    // O fetch size faz o driver trazer as linhas em blocos por um cursor do
+    // banco (so funciona dentro de uma transacao) e cada entidade e desanexada
+    // depois de lida, para o contexto de persistencia nao crescer com o resultado.
+    @Override
+    public Stream<Pessoa> exportar(PessoaFilter filtro, Sort sort) {
+        boolean temCodigo = filtro.getCodigo() != null;
+        boolean temNome = StringUtils.hasText(filtro.getNome());
+        boolean temCpf = StringUtils.hasText(filtro.getCpf());
+        CursorPaginacao semCursor = new CursorPaginacao();
+        String chave = CacheConsultas.chave(sort, semCursor, true, temCodigo, temNome, temCpf);
+        ConsultaPesquisa consulta = cacheConsultas.obter(chave,
+                () -> compilar(true, sort, semCursor, temCodigo, temNome, temCpf));
+
+        TypedQuery<Pessoa> typedQuery = em.createQuery(consulta.getHqlPagina(), Pessoa.class);
+        vincularFiltro(typedQuery, filtro, true);
+        typedQuery.setHint(HibernateHints.HINT_FETCH_SIZE, tamanhoFetch);
+        typedQuery.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return typedQuery.getResultStream().peek(em::detach);
+    }
+
+    // A listagem de todos os registros (listar) nao filtra pelo status: mostra os
+    // inativos junto com os ativos, como o findAll que ela substituiu
+    private ConsultaPesquisa compilar(boolean somenteAtivos, Sort sort, CursorPaginacao cursor, boolean temCodigo,
+            boolean temNome, boolean temCpf) {
+        List<String> condicoes = new ArrayList<>();
+        if (somenteAtivos) {
+            condicoes.add("p.status = :status");
+        }
+        if (temCodigo) {
+            condicoes.add("p.codigo = :codigo");
         }
+        if (temNome) {
+            condicoes.add(PesquisaTextoUtil.condicao("p.nome", "nome", modoBusca));
+        }
+        if (temCpf) {
+            // CPF so tem digitos, a busca textual nao faz sentido para ele
+            condicoes.add(PesquisaTextoUtil.condicao("p.cpf", "cpf", ModoBusca.CONTEM));
+        }
+        String hqlTotal = "select count(p) from Pessoa p" + clausulaWhere(condicoes);
 
-        predicateList.add(builder.equal(p.<Status>get("status"), Status.ATIVO));
+        String ordem;
+        String hqlContinuacao = null;
+        if (cursor.isInformado()) {
+            ordem = PaginacaoUtil.clausulaOrdemCursor("p", sort, cursor, ATRIBUTOS_ORDENACAO);
+            String condicaoContinuacao = PaginacaoUtil.condicaoContinuacao("p", sort, cursor, ATRIBUTOS_ORDENACAO);
+            if (condicaoContinuacao != null) {
+                List<String> condicoesContinuacao = new ArrayList<>(condicoes);
+                condicoesContinuacao.add(condicaoContinuacao);
+                hqlContinuacao = "select p from Pessoa p" + clausulaWhere(condicoesContinuacao) + ordem;
+            }
+            String condicaoCursor = PaginacaoUtil.condicaoCursor("p", sort, cursor, ATRIBUTOS_ORDENACAO);
+            if (condicaoCursor != null) {
+                condicoes.add(condicaoCursor);
+            }
+        } else {
+            ordem = PaginacaoUtil.clausulaOrdem("p", sort, ATRIBUTOS_ORDENACAO);
+        }
+        String hqlPagina = "select p from Pessoa p" + clausulaWhere(condicoes) + ordem;
+        return new ConsultaPesquisa(hqlPagina, hqlTotal, hqlContinuacao);
+    }
 
-        predArray = new Predicate[predicateList.size()];
-        predicateList.toArray(predArray);
-        criteriaQuery.select(p).where(predArray);
-        PaginacaoUtil.prepararOrdem(p, criteriaQuery, builder, pageable);
-        typedQuery = em.createQuery(criteriaQuery);
-        PaginacaoUtil.prepararIntervalo(typedQuery, pageable);
-        typedQuery.setHint("hibernate.query.passDistinctThrough", false);
-        List<Pessoa> pessoas = typedQuery.getResultList();
-        logger.info("Calculando o total de registros que o filtro retornará.");
-        CriteriaQuery<Long> criteriaQueryTotal = builder.createQuery(Long.class);
-        Root<Pessoa> pTotal = criteriaQueryTotal.from(Pessoa.class);
-        criteriaQueryTotal.select(builder.count(pTotal));
+    private static String clausulaWhere(List<String> condicoes) {
+        return condicoes.isEmpty() ? "" : " where " + String.join(" and ", condicoes);
+    }
+
+    private void vincularFiltro(TypedQuery<?> typedQuery, PessoaFilter filtro, boolean somenteAtivos) {
+        if (somenteAtivos) {
+            typedQuery.setParameter("status", Status.ATIVO);
+        }
         if (filtro.getCodigo() != null) {
-            predicateListTotal.add(builder.equal(pTotal.<Long>get("codigo"), filtro.getCodigo()));
+            typedQuery.setParameter("codigo", filtro.getCodigo());
         }
         if (StringUtils.hasText(filtro.getNome())) {
-            predicateListTotal.add(builder.like(builder.lower(pTotal.<String>get("nome")),
-                    "%" + filtro.getNome().toLowerCase() + "%"));
+            typedQuery.setParameter("nome", PesquisaTextoUtil.valorParametro(filtro.getNome(), modoBusca));
         }
         if (StringUtils.hasText(filtro.getCpf())) {
-            predicateListTotal.add(builder.like(builder.lower(pTotal.<String>get("cpf")),
-                    "%" + filtro.getCpf().toLowerCase() + "%"));
+            // Os CPFs estao gravados so com os digitos
+            typedQuery.setParameter("cpf", PesquisaTextoUtil.valorParametro(Cpf.normalizar(filtro.getCpf()),
+                    ModoBusca.CONTEM));
         }
+    }
 
-        predicateListTotal.add(builder.equal(pTotal.<Status>get("status"), Status.ATIVO));
-
-        predArrayTotal = new Predicate[predicateListTotal.size()];
-        predicateListTotal.toArray(predArrayTotal);
-        criteriaQueryTotal.where(predArrayTotal);
-        TypedQuery<Long> typedQueryTotal = em.createQuery(criteriaQueryTotal);
+    private long contar(ConsultaPesquisa consulta, PessoaFilter filtro) {
+        logger.info("Calculando o total de registros que o filtro retornará.");
+        TypedQuery<Long> typedQueryTotal = em.createQuery(consulta.getHqlTotal(), Long.class);
+        vincularFiltro(typedQueryTotal, filtro, true);
         long totalPessoas = typedQueryTotal.getSingleResult();
         logger.info("O filtro retornará {} registros.", totalPessoas);
-        Page<Pessoa> page = new PageImpl<>(pessoas, pageable, totalPessoas);
-        return page;
+        return totalPessoas;
+    }
+
+    // Persiste em blocos do tamanho do batch do JDBC e limpa o contexto de
+    // persistencia a cada bloco, senao ele cresceria com a colecao inteira e o
+    // flush teria que verificar todas as entidades. As entidades ficam detached.
+    @Override
+    public void salvarEmLote(Collection<Pessoa> pessoas) {
+        int quantidade = 0;
+        for (Pessoa pessoa : pessoas) {
+            em.persist(pessoa);
+            quantidade++;
+            if (quantidade % tamanhoLote == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        logger.info("{} registros de Pessoa salvos em lote.", quantidade);
     }
 
-}
\ No newline at end of file
+}
@@ -1,13 +1,30 @@
 package web.controlevacinacao.repository.queries.vacina;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import web.controlevacinacao.filter.VacinaFilter;
 import web.controlevacinacao.model.Vacina;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
 
 public interface VacinaQueries {
 
 	Page<Vacina> pesquisar(VacinaFilter filtro, Pageable pageable);
+
+	Page<Vacina> pesquisar(VacinaFilter filtro, Pageable pageable, CursorPaginacao cursor);
+
+	// Todos os registros, ativos e inativos, em blocos pela paginacao por chave,
+	// sem contar o total. Usado na listagem com rolagem infinita.
+	Page<Vacina> listar(Pageable pageable, CursorPaginacao cursor);
+
+	// Registros do filtro lidos aos poucos por um cursor do banco. Deve ser
+	// chamado dentro de uma transacao e o Stream precisa ser fechado.
+	Stream<Vacina> exportar(VacinaFilter filtro, Sort sort);
+
+	void salvarEmLote(Collection<Vacina> vacinas);
 	
 }
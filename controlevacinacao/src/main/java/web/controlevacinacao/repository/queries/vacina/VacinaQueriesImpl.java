@@ -1,92 +1,238 @@
 package web.controlevacinacao.repository.queries.vacina;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.util.StringUtils;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
-import jakarta.persistence.criteria.Root;
 import web.controlevacinacao.filter.VacinaFilter;
 import web.controlevacinacao.model.Status;
 import web.controlevacinacao.model.Vacina;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
+import web.controlevacinacao.repository.pagination.EstrategiaTotal;
 import web.controlevacinacao.repository.pagination.PaginacaoUtil;
+import web.controlevacinacao.repository.pagination.TipoTotal;
+import web.controlevacinacao.repository.pesquisa.ModoBusca;
+import web.controlevacinacao.repository.pesquisa.PesquisaTextoUtil;
+import web.controlevacinacao.repository.queries.CacheConsultas;
+import web.controlevacinacao.repository.queries.ConsultaPesquisa;
 
 public class VacinaQueriesImpl implements VacinaQueries {
 
 	private static final Logger logger = LoggerFactory.getLogger(VacinaQueriesImpl.class);
 
+	private static final Set<String> ATRIBUTOS_ORDENACAO = Set.of("codigo", "nome", "descricao");
+
+	// Regiao do cache de consultas com os resultados das pesquisas. O Hibernate
+	// descarta os resultados quando a tabela vacina e alterada.
+	private static final String REGIAO_CACHE_PESQUISAS = "vacina-pesquisas";
+
+	private final CacheConsultas cacheConsultas = new CacheConsultas();
+
 	@PersistenceContext
 	private EntityManager em;
 
+	@Value("${paginacao.estrategia-total:EXATO}")
+	private EstrategiaTotal estrategiaTotal;
+
+	@Value("${paginacao.limite-estimativa:100000}")
+	private long limiteEstimativa;
+
+	@Value("${pesquisa.modo-busca:CONTEM}")
+	private ModoBusca modoBusca;
+
+	@Value("${exportacao.tamanho-fetch:1000}")
+	private int tamanhoFetch;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}")
+	private int tamanhoLote;
+
 	@Override
 	public Page<Vacina> pesquisar(VacinaFilter filtro, Pageable pageable) {
-		CriteriaBuilder builder = em.getCriteriaBuilder();
-		CriteriaQuery<Vacina> criteriaQuery = builder.createQuery(Vacina.class);
-		Root<Vacina> v = criteriaQuery.from(Vacina.class);
-		TypedQuery<Vacina> typedQuery;
-		List<Predicate> predicateList = new ArrayList<>();
-		List<Predicate> predicateListTotal = new ArrayList<>();
-		Predicate[] predArray;
-		Predicate[] predArrayTotal;
-		if (filtro.getCodigo() != null) {
-			predicateList.add(builder.equal(v.<Long>get("codigo"), filtro.getCodigo()));
+		return pesquisar(filtro, pageable, new CursorPaginacao());
+	}
+
+	@Override
+	public Page<Vacina> pesquisar(VacinaFilter filtro, Pageable pageable, CursorPaginacao cursor) {
+		boolean temCodigo = filtro.getCodigo() != null;
+		boolean temNome = StringUtils.hasText(filtro.getNome());
+		boolean temDescricao = StringUtils.hasText(filtro.getDescricao());
+		boolean filtrado = temCodigo || temNome || temDescricao;
+		Sort sort = pageable.getSort();
+		String chave = CacheConsultas.chave(sort, cursor, true, temCodigo, temNome, temDescricao);
+		ConsultaPesquisa consulta = cacheConsultas.obter(chave,
+				() -> compilar(true, sort, cursor, temCodigo, temNome, temDescricao));
+
+		List<Vacina> vacinas = buscar(consulta, filtro, true, pageable, cursor);
+
+		long estimativa = estrategiaTotal == EstrategiaTotal.ESTIMADO ? PaginacaoUtil.estimarTotalTabela(em, "vacina")
+				: -1;
+		TipoTotal tipoTotal = PaginacaoUtil.escolherTipoTotal(estrategiaTotal, estimativa, limiteEstimativa, filtrado);
+		long totalVacinas = -1;
+		if (tipoTotal == TipoTotal.EXATO) {
+			totalVacinas = contar(consulta, filtro);
+		} else if (tipoTotal == TipoTotal.APROXIMADO) {
+			totalVacinas = estimativa;
 		}
-		if (StringUtils.hasText(filtro.getNome())) {
-			predicateList.add(builder.like(builder.lower(v.<String>get("nome")),
-					"%" + filtro.getNome().toLowerCase() + "%"));
+		return PaginacaoUtil.criarPagina(vacinas, pageable, cursor, totalVacinas, tipoTotal);
+	}
+
+	@Override
+	public Page<Vacina> listar(Pageable pageable, CursorPaginacao cursor) {
+		Sort sort = pageable.getSort();
+		String chave = CacheConsultas.chave(sort, cursor, false, false, false, false);
+		ConsultaPesquisa consulta = cacheConsultas.obter(chave,
+				() -> compilar(false, sort, cursor, false, false, false));
+		List<Vacina> vacinas = buscar(consulta, new VacinaFilter(), false, pageable, cursor);
+		return PaginacaoUtil.criarPagina(vacinas, pageable, cursor, -1, TipoTotal.DESCONHECIDO);
+	}
+
+	private List<Vacina> buscar(ConsultaPesquisa consulta, VacinaFilter filtro, boolean somenteAtivos, Pageable pageable,
+			CursorPaginacao cursor) {
+		TypedQuery<Vacina> typedQuery = em.createQuery(consulta.getHqlPagina(), Vacina.class);
+		vincularFiltro(typedQuery, filtro, somenteAtivos);
+		PaginacaoUtil.vincularCursor(typedQuery, em, Vacina.class, pageable.getSort(), cursor);
+		PaginacaoUtil.prepararIntervalo(typedQuery, pageable, cursor);
+		usarCache(typedQuery);
+		List<Vacina> resultado = typedQuery.getResultList();
+		int faltam = pageable.getPageSize() + 1 - resultado.size();
+		if (consulta.getHqlContinuacao() == null || faltam <= 0) {
+			return resultado;
 		}
-		if (StringUtils.hasText(filtro.getDescricao())) {
-			predicateList.add(builder.like(builder.lower(v.<String>get("descricao")),
-					"%" + filtro.getDescricao().toLowerCase() + "%"));
+		// A pagina chegou na fronteira entre valores e nulos e continua do outro lado
+		TypedQuery<Vacina> continuacao = em.createQuery(consulta.getHqlContinuacao(), Vacina.class);
+		vincularFiltro(continuacao, filtro, somenteAtivos);
+		continuacao.setMaxResults(faltam);
+		usarCache(continuacao);
+		List<Vacina> completo = new ArrayList<>(resultado);
+		completo.addAll(continuacao.getResultList());
+		return completo;
+	}
+
+	// O fetch size faz o driver trazer as linhas em blocos por um cursor do
+	// banco (so funciona dentro de uma transacao) e cada entidade e desanexada
+	// depois de lida, para o contexto de persistencia nao crescer com o resultado.
+	@Override
+	public Stream<Vacina> exportar(VacinaFilter filtro, Sort sort) {
+		boolean temCodigo = filtro.getCodigo() != null;
+		boolean temNome = StringUtils.hasText(filtro.getNome());
+		boolean temDescricao = StringUtils.hasText(filtro.getDescricao());
+		CursorPaginacao semCursor = new CursorPaginacao();
+		String chave = CacheConsultas.chave(sort, semCursor, true, temCodigo, temNome, temDescricao);
+		ConsultaPesquisa consulta = cacheConsultas.obter(chave,
+				() -> compilar(true, sort, semCursor, temCodigo, temNome, temDescricao));
+
+		TypedQuery<Vacina> typedQuery = em.createQuery(consulta.getHqlPagina(), Vacina.class);
+		vincularFiltro(typedQuery, filtro, true);
+		typedQuery.setHint(HibernateHints.HINT_FETCH_SIZE, tamanhoFetch);
+		typedQuery.setHint(HibernateHints.HINT_READ_ONLY, true);
+		return typedQuery.getResultStream().peek(em::detach);
+	}
+
+	// A listagem de todos os registros (listar) nao filtra pelo status: mostra os
+	// inativos junto com os ativos, como o findAll que ela substituiu
+	private ConsultaPesquisa compilar(boolean somenteAtivos, Sort sort, CursorPaginacao cursor, boolean temCodigo,
+			boolean temNome, boolean temDescricao) {
+		List<String> condicoes = new ArrayList<>();
+		if (somenteAtivos) {
+			condicoes.add("v.status = :status");
+		}
+		if (temCodigo) {
+			condicoes.add("v.codigo = :codigo");
+		}
+		if (temNome) {
+			condicoes.add(PesquisaTextoUtil.condicao("v.nome", "nome", modoBusca));
 		}
+		if (temDescricao) {
+			condicoes.add(PesquisaTextoUtil.condicao("v.descricao", "descricao", modoBusca));
+		}
+		String hqlTotal = "select count(v) from Vacina v" + clausulaWhere(condicoes);
 
-		predicateList.add(builder.equal(v.<Status>get("status"), Status.ATIVO));
+		String ordem;
+		String hqlContinuacao = null;
+		if (cursor.isInformado()) {
+			ordem = PaginacaoUtil.clausulaOrdemCursor("v", sort, cursor, ATRIBUTOS_ORDENACAO);
+			String condicaoContinuacao = PaginacaoUtil.condicaoContinuacao("v", sort, cursor, ATRIBUTOS_ORDENACAO);
+			if (condicaoContinuacao != null) {
+				List<String> condicoesContinuacao = new ArrayList<>(condicoes);
+				condicoesContinuacao.add(condicaoContinuacao);
+				hqlContinuacao = "select v from Vacina v" + clausulaWhere(condicoesContinuacao) + ordem;
+			}
+			String condicaoCursor = PaginacaoUtil.condicaoCursor("v", sort, cursor, ATRIBUTOS_ORDENACAO);
+			if (condicaoCursor != null) {
+				condicoes.add(condicaoCursor);
+			}
+		} else {
+			ordem = PaginacaoUtil.clausulaOrdem("v", sort, ATRIBUTOS_ORDENACAO);
+		}
+		String hqlPagina = "select v from Vacina v" + clausulaWhere(condicoes) + ordem;
+		return new ConsultaPesquisa(hqlPagina, hqlTotal, hqlContinuacao);
+	}
 
-		predArray = new Predicate[predicateList.size()];
-		predicateList.toArray(predArray);
-		criteriaQuery.select(v).where(predArray);
-		PaginacaoUtil.prepararOrdem(v, criteriaQuery, builder, pageable);
-		typedQuery = em.createQuery(criteriaQuery);
-		PaginacaoUtil.prepararIntervalo(typedQuery, pageable);
-		typedQuery.setHint("hibernate.query.passDistinctThrough", false);
-		List<Vacina> vacinas = typedQuery.getResultList();
-		logger.info("Calculando o total de registros que o filtro retornará.");
-		CriteriaQuery<Long> criteriaQueryTotal = builder.createQuery(Long.class);
-		Root<Vacina> vTotal = criteriaQueryTotal.from(Vacina.class);
-		criteriaQueryTotal.select(builder.count(vTotal));
+	private static String clausulaWhere(List<String> condicoes) {
+		return condicoes.isEmpty() ? "" : " where " + String.join(" and ", condicoes);
+	}
+
+	private void vincularFiltro(TypedQuery<?> typedQuery, VacinaFilter filtro, boolean somenteAtivos) {
+		if (somenteAtivos) {
+			typedQuery.setParameter("status", Status.ATIVO);
+		}
 		if (filtro.getCodigo() != null) {
-			predicateListTotal.add(builder.equal(vTotal.<Long>get("codigo"), filtro.getCodigo()));
+			typedQuery.setParameter("codigo", filtro.getCodigo());
 		}
 		if (StringUtils.hasText(filtro.getNome())) {
-			predicateListTotal.add(builder.like(builder.lower(vTotal.<String>get("nome")),
-					"%" + filtro.getNome().toLowerCase() + "%"));
+			typedQuery.setParameter("nome", PesquisaTextoUtil.valorParametro(filtro.getNome(), modoBusca));
 		}
 		if (StringUtils.hasText(filtro.getDescricao())) {
-			predicateListTotal.add(builder.like(builder.lower(vTotal.<String>get("descricao")),
-					"%" + filtro.getDescricao().toLowerCase() + "%"));
+			typedQuery.setParameter("descricao", PesquisaTextoUtil.valorParametro(filtro.getDescricao(), modoBusca));
 		}
+	}
 
-		predicateListTotal.add(builder.equal(vTotal.<Status>get("status"), Status.ATIVO));
-
-		predArrayTotal = new Predicate[predicateListTotal.size()];
-		predicateListTotal.toArray(predArrayTotal);
-		criteriaQueryTotal.where(predArrayTotal);
-		TypedQuery<Long> typedQueryTotal = em.createQuery(criteriaQueryTotal);
+	private long contar(ConsultaPesquisa consulta, VacinaFilter filtro) {
+		logger.info("Calculando o total de registros que o filtro retornará.");
+		TypedQuery<Long> typedQueryTotal = em.createQuery(consulta.getHqlTotal(), Long.class);
+		vincularFiltro(typedQueryTotal, filtro, true);
+		usarCache(typedQueryTotal);
 		long totalVacinas = typedQueryTotal.getSingleResult();
 		logger.info("O filtro retornará {} registros.", totalVacinas);
-		Page<Vacina> page = new PageImpl<>(vacinas, pageable, totalVacinas);
-		return page;
+		return totalVacinas;
+	}
+
+	private void usarCache(TypedQuery<?> typedQuery) {
+		typedQuery.setHint(HibernateHints.HINT_CACHEABLE, true);
+		typedQuery.setHint(HibernateHints.HINT_CACHE_REGION, REGIAO_CACHE_PESQUISAS);
+	}
+
+	// Persiste em blocos do tamanho do batch do JDBC e limpa o contexto de
+	// persistencia a cada bloco, senao ele cresceria com a colecao inteira e o
+	// flush teria que verificar todas as entidades. As entidades ficam detached.
+	@Override
+	public void salvarEmLote(Collection<Vacina> vacinas) {
+		int quantidade = 0;
+		for (Vacina vacina : vacinas) {
+			em.persist(vacina);
+			quantidade++;
+			if (quantidade % tamanhoLote == 0) {
+				em.flush();
+				em.clear();
+			}
+		}
+		em.flush();
+		em.clear();
+		logger.info("{} registros de Vacina salvos em lote.", quantidade);
 	}
 
 }
@@ -0,0 +1,7 @@
+package web.controlevacinacao.service;
+
+import web.controlevacinacao.validation.service.BatchUniqueValue;
+
+public interface CpfUnicoService extends BatchUniqueValue {
+
+}
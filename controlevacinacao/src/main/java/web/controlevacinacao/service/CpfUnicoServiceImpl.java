@@ -0,0 +1,79 @@
+package web.controlevacinacao.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import web.controlevacinacao.model.Pessoa;
+import web.controlevacinacao.repository.PessoaRepository;
+import web.controlevacinacao.unicidade.FiltroCpf;
+
+@Service
+@Transactional(readOnly = true)
+public class CpfUnicoServiceImpl implements CpfUnicoService {
+
+    // Limita o numero de parametros de cada consulta IN
+    private static final int TAMANHO_CONSULTA = 1000;
+
+    private final PessoaRepository pessoaRepository;
+    private final FiltroCpf filtroCpf;
+
+    public CpfUnicoServiceImpl(PessoaRepository pessoaRepository, FiltroCpf filtroCpf) {
+        this.pessoaRepository = pessoaRepository;
+        this.filtroCpf = filtroCpf;
+    }
+
+    @Override
+    public boolean isValueUnique(Object value, String fieldName) throws UnsupportedOperationException {
+        return findNotUnique(List.of(value), fieldName).isEmpty();
+    }
+
+    // Uma consulta para cada TAMANHO_CONSULTA pessoas, so com os CPFs que o
+    // filtro nao garante serem novos. O CPF so e repetido se pertencer a outra
+    // pessoa, uma pessoa ja cadastrada pode manter o seu.
+    @Override
+    public Set<Integer> findNotUnique(List<?> objects, String fieldName) throws UnsupportedOperationException {
+        if (!fieldName.equals("cpf")) {
+            throw new UnsupportedOperationException("A anotação deveria ser usada no atributo cpf");
+        }
+        Set<Integer> repetidos = new HashSet<>();
+        for (int inicio = 0; inicio < objects.size(); inicio += TAMANHO_CONSULTA) {
+            List<?> parte = objects.subList(inicio, Math.min(inicio + TAMANHO_CONSULTA, objects.size()));
+            List<String> cpfs = new ArrayList<>(parte.size());
+            for (Object object : parte) {
+                String cpf = ((Pessoa) object).getCpf();
+                if (cpf != null && !cpf.isBlank() && filtroCpf.talvezExista(cpf)) {
+                    cpfs.add(cpf);
+                }
+            }
+            if (cpfs.isEmpty()) {
+                continue;
+            }
+
+            Map<String, List<Long>> codigosPorCpf = new HashMap<>();
+            for (Object[] linha : pessoaRepository.buscarCodigosPorCpf(cpfs)) {
+                codigosPorCpf.computeIfAbsent((String) linha[1], c -> new ArrayList<>(1)).add((Long) linha[0]);
+            }
+            for (String cpf : cpfs) {
+                if (!codigosPorCpf.containsKey(cpf)) {
+                    filtroCpf.registrarFalsoPositivo();
+                }
+            }
+            for (int i = 0; i < parte.size(); i++) {
+                Pessoa pessoa = (Pessoa) parte.get(i);
+                List<Long> codigos = codigosPorCpf.get(pessoa.getCpf());
+                if (codigos != null && (codigos.size() > 1 || !codigos.get(0).equals(pessoa.getCodigo()))) {
+                    repetidos.add(inicio + i);
+                }
+            }
+        }
+        return repetidos;
+    }
+
+}
@@ -0,0 +1,186 @@
+package web.controlevacinacao.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import web.controlevacinacao.cache.GeracaoDados;
+import web.controlevacinacao.csv.LeitorCsv;
+import web.controlevacinacao.importacao.ResultadoImportacao;
+import web.controlevacinacao.model.Pessoa;
+import web.controlevacinacao.repository.carga.CargaPessoaRepository;
+import web.controlevacinacao.unicidade.FiltroCpf;
+import web.controlevacinacao.validation.validator.UniqueValueBatchValidator;
+
+// Importa pessoas de um CSV com as colunas nome e cpf (em qualquer ordem). O
+// arquivo e lido registro a registro e gravado em blocos, cada bloco na sua
+// propria transacao, para que a memoria usada nao dependa do tamanho do arquivo
+// e uma falha de gravacao so descarte o bloco em que ocorreu. A unicidade do CPF
+// e verificada por bloco, com uma consulta para o bloco inteiro.
+@Service
+public class ImportacaoPessoaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacaoPessoaService.class);
+
+    private final CargaPessoaRepository cargaPessoaRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final GeracaoDados geracaoDados;
+    private final UniqueValueBatchValidator uniqueValueBatchValidator;
+    private final CpfUnicoService cpfUnicoService;
+    private final FiltroCpf filtroCpf;
+
+    @Value("${importacao.tamanho-bloco:5000}")
+    private int tamanhoBloco;
+    @Value("${importacao.maximo-erros:1000}")
+    private int maximoErros;
+
+    public ImportacaoPessoaService(CargaPessoaRepository cargaPessoaRepository, Validator validator,
+            PlatformTransactionManager transactionManager, GeracaoDados geracaoDados,
+            UniqueValueBatchValidator uniqueValueBatchValidator, CpfUnicoService cpfUnicoService,
+            FiltroCpf filtroCpf) {
+        this.cargaPessoaRepository = cargaPessoaRepository;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.geracaoDados = geracaoDados;
+        this.uniqueValueBatchValidator = uniqueValueBatchValidator;
+        this.cpfUnicoService = cpfUnicoService;
+        this.filtroCpf = filtroCpf;
+    }
+
+    public ResultadoImportacao importar(InputStream entrada) throws IOException {
+        ResultadoImportacao resultado = new ResultadoImportacao(maximoErros);
+        try (LeitorCsv leitor = LeitorCsv.abrir(entrada)) {
+            List<Pessoa> bloco = new ArrayList<>(tamanhoBloco);
+            List<Long> linhasBloco = new ArrayList<>(tamanhoBloco);
+            try {
+                List<String> cabecalho = leitor.proximoRegistro();
+                int colunaNome = indiceColuna(cabecalho, "nome");
+                int colunaCpf = indiceColuna(cabecalho, "cpf");
+                if (colunaNome < 0 || colunaCpf < 0) {
+                    resultado.registrarErro(1, "O cabeçalho do arquivo deve ter as colunas nome e cpf");
+                    return resultado;
+                }
+
+                List<String> registro;
+                while ((registro = leitor.proximoRegistro()) != null) {
+                    resultado.registrarLeitura();
+                    long linha = leitor.getLinhaRegistro();
+                    Pessoa pessoa = new Pessoa();
+                    pessoa.setNome(campo(registro, colunaNome));
+                    pessoa.setCpf(campo(registro, colunaCpf));
+                    Set<ConstraintViolation<Pessoa>> violacoes = validator.validate(pessoa);
+                    if (!violacoes.isEmpty()) {
+                        resultado.registrarErro(linha, violacoes.stream()
+                                .map(ConstraintViolation::getMessage)
+                                .sorted()
+                                .collect(Collectors.joining("; ")));
+                        continue;
+                    }
+                    bloco.add(pessoa);
+                    linhasBloco.add(linha);
+                    if (bloco.size() >= tamanhoBloco) {
+                        gravarBloco(bloco, linhasBloco, resultado);
+                    }
+                }
+            } catch (IOException e) {
+                // Registro grande demais, aspas sem fechamento ou falha no envio do
+                // arquivo. Os blocos anteriores ja foram gravados, entao a leitura
+                // para aqui e o resultado parcial e devolvido dizendo ate onde foi.
+                logger.info("Importação interrompida na linha {}: {}", leitor.getLinhaRegistro(), e.getMessage());
+                resultado.registrarErro(leitor.getLinhaRegistro(), "A leitura do arquivo foi interrompida: "
+                        + e.getMessage() + ". As linhas seguintes não foram importadas");
+            }
+            gravarBloco(bloco, linhasBloco, resultado);
+        }
+        logger.info("Importação de pessoas concluída: {} lidas, {} gravadas, {} com erro",
+                resultado.getRegistrosLidos(), resultado.getRegistrosGravados(), resultado.getTotalErros());
+        return resultado;
+    }
+
+    private void gravarBloco(List<Pessoa> bloco, List<Long> linhasBloco, ResultadoImportacao resultado) {
+        if (bloco.isEmpty()) {
+            return;
+        }
+        long primeiraLinha = linhasBloco.get(0);
+        long ultimaLinha = linhasBloco.get(linhasBloco.size() - 1);
+        removerCpfsRepetidos(bloco, linhasBloco, resultado);
+        if (bloco.isEmpty()) {
+            linhasBloco.clear();
+            return;
+        }
+        for (Pessoa pessoa : bloco) {
+            filtroCpf.adicionar(pessoa.getCpf());
+        }
+        try {
+            Long gravados = transactionTemplate.execute(status -> {
+                long copiados = cargaPessoaRepository.copiar(bloco);
+                geracaoDados.avancar(Pessoa.class);
+                return copiados;
+            });
+            resultado.registrarGravados(gravados == null ? 0 : gravados);
+        } catch (DataAccessException e) {
+            logger.info("Falha ao gravar as linhas {} a {}: {}", primeiraLinha, ultimaLinha, e.getMessage());
+            resultado.registrarErros(primeiraLinha, "As linhas " + primeiraLinha + " a " + ultimaLinha
+                    + " não foram gravadas: " + e.getMostSpecificCause().getMessage(), bloco.size());
+        }
+        bloco.clear();
+        linhasBloco.clear();
+    }
+
+    // CPFs repetidos dentro do bloco ou ja cadastrados nao sao gravados
+    private void removerCpfsRepetidos(List<Pessoa> bloco, List<Long> linhasBloco, ResultadoImportacao resultado) {
+        Map<Integer, List<String>> erros = uniqueValueBatchValidator.validate(bloco, "cpf", cpfUnicoService,
+                "Já existe uma pessoa cadastrada com este CPF", "O CPF se repete em outra linha do arquivo");
+        if (erros.isEmpty()) {
+            return;
+        }
+        List<Pessoa> validas = new ArrayList<>(bloco.size());
+        List<Long> linhasValidas = new ArrayList<>(bloco.size());
+        for (int i = 0; i < bloco.size(); i++) {
+            List<String> mensagens = erros.get(i);
+            if (mensagens == null) {
+                validas.add(bloco.get(i));
+                linhasValidas.add(linhasBloco.get(i));
+            } else {
+                resultado.registrarErro(linhasBloco.get(i), String.join("; ", mensagens));
+            }
+        }
+        bloco.clear();
+        bloco.addAll(validas);
+        linhasBloco.clear();
+        linhasBloco.addAll(linhasValidas);
+    }
+
+    private static int indiceColuna(List<String> cabecalho, String nome) {
+        if (cabecalho == null) {
+            return -1;
+        }
+        for (int i = 0; i < cabecalho.size(); i++) {
+            if (cabecalho.get(i).trim().toLowerCase(Locale.ROOT).equals(nome)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String campo(List<String> registro, int indice) {
+        return indice < registro.size() ? registro.get(indice).trim() : null;
+    }
+
+}
@@ -1,31 +1,127 @@
 package web.controlevacinacao.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import web.controlevacinacao.cache.CacheResultadosPesquisa;
+import web.controlevacinacao.cache.GeracaoDados;
+import web.controlevacinacao.exportacao.EscritorExportacao;
+import web.controlevacinacao.exportacao.FormatoExportacao;
+import web.controlevacinacao.filter.PessoaFilter;
 import web.controlevacinacao.model.Pessoa;
 import web.controlevacinacao.repository.PessoaRepository;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
+import web.controlevacinacao.unicidade.CpfRepetidoException;
+import web.controlevacinacao.unicidade.FiltroCpf;
 
 @Service
 @Transactional
 public class PessoaService {
 
     private PessoaRepository pessoaRepository;
+    private CacheResultadosPesquisa cacheResultadosPesquisa;
+    private GeracaoDados geracaoDados;
+    private FiltroCpf filtroCpf;
+    private CpfUnicoService cpfUnicoService;
 
-    public PessoaService(PessoaRepository vacinaRepository) {
+    public PessoaService(PessoaRepository vacinaRepository, CacheResultadosPesquisa cacheResultadosPesquisa,
+            GeracaoDados geracaoDados, FiltroCpf filtroCpf, CpfUnicoService cpfUnicoService) {
         this.pessoaRepository = vacinaRepository;
+        this.cacheResultadosPesquisa = cacheResultadosPesquisa;
+        this.geracaoDados = geracaoDados;
+        this.filtroCpf = filtroCpf;
+        this.cpfUnicoService = cpfUnicoService;
+    }
+
+    // Sem transacao propria: quando a pagina vem do cache nenhuma conexao com o
+    // banco e usada.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Pessoa> pesquisar(PessoaFilter filtro, Pageable pageable, CursorPaginacao cursor) {
+        return cacheResultadosPesquisa.obter(Pessoa.class, chaveCache(filtro), pageable, cursor,
+                () -> pessoaRepository.pesquisar(filtro, pageable, cursor));
+    }
+
+    // Muda a cada alteracao das pessoas confirmada no banco. Enquanto nao mudar, a
+    // mesma pesquisa devolve a mesma resposta (ETag das paginas de pesquisa).
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long geracao() {
+        return geracaoDados.atual(Pessoa.class);
+    }
+
+    // Os filtros de texto sao comparados sem diferenciar maiusculas e os vazios
+    // sao ignorados, a chave segue as mesmas regras
+    private static String chaveCache(PessoaFilter filtro) {
+        return filtro.getCodigo() + "|" + normalizar(filtro.getNome()) + "|" + normalizar(filtro.getCpf());
     }
 
+    private static String normalizar(String texto) {
+        return StringUtils.hasText(texto) ? texto.toLowerCase() : "";
+    }
+
+    // O CPF e verificado pelo CpfUnicoService, que so consulta o banco quando o
+    // filtro diz que ele talvez exista. Depois entra no filtro antes da gravacao:
+    // se ela falhar ele so gera um falso positivo, o contrario deixaria passar um
+    // CPF repetido. Duas gravacoes simultaneas do mesmo CPF sao barradas pela
+    // restricao UNIQUE (DataIntegrityViolationException).
     public void salvar(Pessoa pessoa) {
+        verificarCpfUnico(pessoa);
+        filtroCpf.adicionar(pessoa.getCpf());
         pessoaRepository.save(pessoa);
+        geracaoDados.avancar(Pessoa.class);
+    }
+
+    public void salvarTodos(Collection<Pessoa> pessoas) {
+        for (Pessoa pessoa : pessoas) {
+            filtroCpf.adicionar(pessoa.getCpf());
+        }
+        pessoaRepository.salvarEmLote(pessoas);
+        geracaoDados.avancar(Pessoa.class);
+    }
+
+    // A transacao fica aberta enquanto os registros sao escritos, o cursor do
+    // banco so existe dentro dela
+    @Transactional(readOnly = true)
+    public long exportar(PessoaFilter filtro, Sort sort, FormatoExportacao formato, OutputStream saida)
+            throws IOException {
+        EscritorExportacao escritor = new EscritorExportacao(formato, saida, "codigo", "nome", "cpf");
+        try (Stream<Pessoa> pessoas = pessoaRepository.exportar(filtro, sort)) {
+            Iterator<Pessoa> iterator = pessoas.iterator();
+            while (iterator.hasNext()) {
+                Pessoa pessoa = iterator.next();
+                escritor.escrever(pessoa.getCodigo(), pessoa.getNome(), pessoa.getCpf());
+            }
+        }
+        escritor.concluir();
+        return escritor.getRegistros();
     }
 
     public void alterar(Pessoa pessoa) {
+        verificarCpfUnico(pessoa);
+        filtroCpf.adicionar(pessoa.getCpf());
         pessoaRepository.save(pessoa);
+        geracaoDados.avancar(Pessoa.class);
+    }
+
+    private void verificarCpfUnico(Pessoa pessoa) {
+        if (!cpfUnicoService.isValueUnique(pessoa, "cpf")) {
+            throw new CpfRepetidoException(pessoa.getCpf());
+        }
     }
 
     public void remover(Pessoa pessoa) {
         pessoaRepository.delete(pessoa);
+        geracaoDados.avancar(Pessoa.class);
     }
 
 }
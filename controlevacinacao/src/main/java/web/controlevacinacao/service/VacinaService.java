@@ -1,31 +1,103 @@
 package web.controlevacinacao.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import web.controlevacinacao.cache.CacheResultadosPesquisa;
+import web.controlevacinacao.cache.GeracaoDados;
+import web.controlevacinacao.exportacao.EscritorExportacao;
+import web.controlevacinacao.exportacao.FormatoExportacao;
+import web.controlevacinacao.filter.VacinaFilter;
 import web.controlevacinacao.model.Vacina;
 import web.controlevacinacao.repository.VacinaRepository;
+import web.controlevacinacao.repository.pagination.CursorPaginacao;
 
 @Service
 @Transactional
 public class VacinaService {
 
     private VacinaRepository vacinaRepository;
+    private CacheResultadosPesquisa cacheResultadosPesquisa;
+    private GeracaoDados geracaoDados;
 
-    public VacinaService(VacinaRepository vacinaRepository) {
+    public VacinaService(VacinaRepository vacinaRepository, CacheResultadosPesquisa cacheResultadosPesquisa,
+            GeracaoDados geracaoDados) {
         this.vacinaRepository = vacinaRepository;
+        this.cacheResultadosPesquisa = cacheResultadosPesquisa;
+        this.geracaoDados = geracaoDados;
+    }
+
+    // Sem transacao propria: quando a pagina vem do cache nenhuma conexao com o
+    // banco e usada.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Vacina> pesquisar(VacinaFilter filtro, Pageable pageable, CursorPaginacao cursor) {
+        return cacheResultadosPesquisa.obter(Vacina.class, chaveCache(filtro), pageable, cursor,
+                () -> vacinaRepository.pesquisar(filtro, pageable, cursor));
+    }
+
+    // Muda a cada alteracao das vacinas confirmada no banco. Enquanto nao mudar, a
+    // mesma pesquisa devolve a mesma resposta (ETag das paginas de pesquisa).
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long geracao() {
+        return geracaoDados.atual(Vacina.class);
+    }
+
+    // Os filtros de texto sao comparados sem diferenciar maiusculas e os vazios
+    // sao ignorados, a chave segue as mesmas regras
+    private static String chaveCache(VacinaFilter filtro) {
+        return filtro.getCodigo() + "|" + normalizar(filtro.getNome()) + "|" + normalizar(filtro.getDescricao());
+    }
+
+    private static String normalizar(String texto) {
+        return StringUtils.hasText(texto) ? texto.toLowerCase() : "";
     }
 
     public void salvar(Vacina vacina) {
         vacinaRepository.save(vacina);
+        geracaoDados.avancar(Vacina.class);
+    }
+
+    public void salvarTodos(Collection<Vacina> vacinas) {
+        vacinaRepository.salvarEmLote(vacinas);
+        geracaoDados.avancar(Vacina.class);
+    }
+
+    // A transacao fica aberta enquanto os registros sao escritos, o cursor do
+    // banco so existe dentro dela
+    @Transactional(readOnly = true)
+    public long exportar(VacinaFilter filtro, Sort sort, FormatoExportacao formato, OutputStream saida)
+            throws IOException {
+        EscritorExportacao escritor = new EscritorExportacao(formato, saida, "codigo", "nome", "descricao");
+        try (Stream<Vacina> vacinas = vacinaRepository.exportar(filtro, sort)) {
+            Iterator<Vacina> iterator = vacinas.iterator();
+            while (iterator.hasNext()) {
+                Vacina vacina = iterator.next();
+                escritor.escrever(vacina.getCodigo(), vacina.getNome(), vacina.getDescricao());
+            }
+        }
+        escritor.concluir();
+        return escritor.getRegistros();
     }
 
     public void alterar(Vacina vacina) {
         vacinaRepository.save(vacina);
+        geracaoDados.avancar(Vacina.class);
     }
 
     public void remover(Vacina vacina) {
         vacinaRepository.delete(vacina);
+        geracaoDados.avancar(Vacina.class);
     }
 
 }
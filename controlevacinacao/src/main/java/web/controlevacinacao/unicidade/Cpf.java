@@ -0,0 +1,34 @@
+package web.controlevacinacao.unicidade;
+
+// Forma unica de um CPF, usada ao gravar, ao consultar o banco e no FiltroCpf:
+// "123.456.789-09" e "12345678909" sao o mesmo CPF e precisam ser comparados
+// pelo mesmo texto em todos esses lugares (a restricao UNIQUE compara o texto
+// gravado).
+public final class Cpf {
+
+    private Cpf() {
+    }
+
+    // So os digitos. Um texto sem nenhum digito nao e um CPF valido, e mantido
+    // sem os espacos das pontas para a validacao recusar ou mostrar como veio.
+    public static String normalizar(String cpf) {
+        if (cpf == null) {
+            return null;
+        }
+        StringBuilder digitos = null;
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digitos == null) {
+                    digitos = new StringBuilder(11);
+                }
+                digitos.append(c);
+            }
+        }
+        if (digitos == null) {
+            return cpf.trim();
+        }
+        return digitos.length() == cpf.length() ? cpf : digitos.toString();
+    }
+
+}
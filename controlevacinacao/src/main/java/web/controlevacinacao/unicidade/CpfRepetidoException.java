@@ -0,0 +1,12 @@
+package web.controlevacinacao.unicidade;
+
+// O CPF informado ja pertence a outra pessoa
+public class CpfRepetidoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CpfRepetidoException(String cpf) {
+        super("Já existe uma pessoa cadastrada com o CPF " + cpf);
+    }
+
+}
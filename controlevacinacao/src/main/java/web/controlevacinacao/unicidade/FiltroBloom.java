@@ -0,0 +1,82 @@
+package web.controlevacinacao.unicidade;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom de tamanho fixo para textos. Responde "com certeza nao foi
+// adicionado" ou "talvez tenha sido adicionado", nunca da falso negativo. Pode
+// ser usado por varias threads ao mesmo tempo sem bloqueios.
+public class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long numeroBits;
+    private final int numeroHashes;
+
+    public FiltroBloom(long elementosEsperados, double taxaFalsosPositivos) {
+        long elementos = Math.max(elementosEsperados, 1);
+        long bitsNecessarios = (long) Math.ceil(-elementos * Math.log(taxaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        int palavras = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bitsNecessarios + 63) / 64));
+        this.bits = new AtomicLongArray(palavras);
+        this.numeroBits = (long) palavras * 64;
+        this.numeroHashes = (int) Math.max(1, Math.round((double) numeroBits / elementos * Math.log(2)));
+    }
+
+    public void adicionar(String valor) {
+        long hash = hash(valor);
+        long hash1 = misturar(hash);
+        long hash2 = misturar(hash ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numeroHashes; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % numeroBits;
+            long mascara = 1L << bit;
+            int palavra = (int) (bit >>> 6);
+            if ((bits.get(palavra) & mascara) == 0) {
+                bits.getAndAccumulate(palavra, mascara, (atual, novo) -> atual | novo);
+            }
+        }
+    }
+
+    public boolean talvezContenha(String valor) {
+        long hash = hash(valor);
+        long hash1 = misturar(hash);
+        long hash2 = misturar(hash ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numeroHashes; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % numeroBits;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getTamanhoBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    // Probabilidade de falso positivo com a ocupacao atual: (bits ligados / bits) ^ hashes.
+    // Percorre o vetor inteiro, e para as metricas e nao para cada consulta.
+    public double getTaxaFalsosPositivosEstimada() {
+        long ligados = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            ligados += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) ligados / numeroBits, numeroHashes);
+    }
+
+    private static long hash(String valor) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash = (hash ^ valor.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // Finalizador do MurmurHash3, espalha os bits do FNV-1a
+    private static long misturar(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
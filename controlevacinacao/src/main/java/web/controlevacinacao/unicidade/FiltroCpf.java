@@ -0,0 +1,191 @@
+package web.controlevacinacao.unicidade;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import web.controlevacinacao.repository.carga.CargaPessoaRepository;
+
+// CPFs ja cadastrados, para que a verificacao de unicidade so consulte o banco
+// quando o CPF talvez exista. Na maioria dos cadastros o CPF e novo e o filtro
+// responde sozinho.
+//
+// O filtro e montado quando a aplicacao fica pronta e recebe os CPFs gravados
+// pelos servicos. Como um filtro de Bloom nao remove elementos, CPFs alterados
+// ou removidos continuam nele e so geram falsos positivos, que caem na consulta
+// ao banco. Quando o numero de CPFs passa da capacidade o filtro e remontado.
+//
+// A leitura da tabela nao ve os CPFs de transacoes ainda abertas quando ela
+// comecou. Se o CPF entrou no filtro antigo antes da montagem, o filtro novo
+// nao o tem. Por isso o filtro substituido continua sendo consultado ate uma
+// segunda leitura, feita depois da troca, completar o novo. A garantia final e
+// a restricao UNIQUE de pessoa.cpf.
+@Component
+public class FiltroCpf {
+
+    private static final Logger logger = LoggerFactory.getLogger(FiltroCpf.class);
+
+    private final CargaPessoaRepository cargaPessoaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long capacidadeMinima;
+    private final double taxaFalsosPositivos;
+    private final int tamanhoFetch;
+
+    // null enquanto o filtro nao foi montado: todos os CPFs vao ao banco
+    private volatile FiltroBloom filtro;
+    // Filtro sendo montado, recebe tambem os CPFs gravados durante a montagem
+    private volatile FiltroBloom emConstrucao;
+    // Filtro substituido, consultado junto com o atual ate a segunda leitura
+    private volatile FiltroBloom anterior;
+    private volatile long capacidade;
+    private final AtomicLong elementos = new AtomicLong();
+    private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+    private final Counter consultasNovo;
+    private final Counter consultasTalvez;
+    private final Counter falsosPositivos;
+
+    public FiltroCpf(CargaPessoaRepository cargaPessoaRepository, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${unicidade.cpf.capacidade-minima:100000}") long capacidadeMinima,
+            @Value("${unicidade.cpf.taxa-falsos-positivos:0.01}") double taxaFalsosPositivos,
+            @Value("${exportacao.tamanho-fetch:1000}") int tamanhoFetch) {
+        this.cargaPessoaRepository = cargaPessoaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.capacidadeMinima = capacidadeMinima;
+        this.taxaFalsosPositivos = taxaFalsosPositivos;
+        this.tamanhoFetch = tamanhoFetch;
+
+        this.consultasNovo = Counter.builder("unicidade.cpf.filtro.consultas").tag("resultado", "novo")
+                .description("CPFs que o filtro garantiu serem novos, sem consultar o banco")
+                .register(meterRegistry);
+        this.consultasTalvez = Counter.builder("unicidade.cpf.filtro.consultas").tag("resultado", "talvez")
+                .description("CPFs que talvez existam e foram consultados no banco")
+                .register(meterRegistry);
+        this.falsosPositivos = Counter.builder("unicidade.cpf.filtro.falsos.positivos")
+                .description("CPFs que o filtro indicou como existentes mas nao estavam no banco")
+                .register(meterRegistry);
+        Gauge.builder("unicidade.cpf.filtro.memoria", this, f -> f.filtro == null ? 0 : f.filtro.getTamanhoBytes())
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("unicidade.cpf.filtro.elementos", elementos, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("unicidade.cpf.filtro.taxa.falsos.positivos.estimada", this,
+                f -> f.filtro == null ? 1 : f.filtro.getTaxaFalsosPositivosEstimada())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aquecer() {
+        reconstruir();
+    }
+
+    public void reconstruir() {
+        if (!reconstruindo.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long inicio = System.nanoTime();
+            long total = cargaPessoaRepository.contar();
+            long novaCapacidade = Math.max(capacidadeMinima, total * 2);
+            FiltroBloom novo = new FiltroBloom(novaCapacidade, taxaFalsosPositivos);
+            emConstrucao = novo;
+            long carregados = carregar(novo);
+            capacidade = novaCapacidade;
+            elementos.set(carregados);
+            // anterior antes de filtro: quem le o filtro novo ja ve o anterior
+            anterior = filtro;
+            filtro = novo;
+            emConstrucao = null;
+            logger.info("Filtro de CPFs montado com {} CPFs em {} ms ({} KB, capacidade {})", carregados,
+                    (System.nanoTime() - inicio) / 1_000_000, novo.getTamanhoBytes() / 1024, novaCapacidade);
+
+            // Os CPFs confirmados depois do inicio da primeira leitura entram agora
+            // e o filtro anterior pode ser descartado
+            carregar(novo);
+            anterior = null;
+            logger.info("Filtro de CPFs completado em {} ms", (System.nanoTime() - inicio) / 1_000_000);
+        } catch (DataAccessException e) {
+            // Sem o filtro a verificacao continua correta, so consulta sempre o banco.
+            // Se a falha foi na segunda leitura o anterior continua sendo consultado.
+            logger.warn("Não foi possível montar o filtro de CPFs: {}", e.getMessage());
+        } finally {
+            emConstrucao = null;
+            reconstruindo.set(false);
+        }
+    }
+
+    private long carregar(FiltroBloom destino) {
+        AtomicLong carregados = new AtomicLong();
+        transactionTemplate.executeWithoutResult(status -> cargaPessoaRepository.percorrerCpfs(tamanhoFetch,
+                cpf -> {
+                    String normalizado = normalizar(cpf);
+                    if (normalizado != null) {
+                        destino.adicionar(normalizado);
+                        carregados.incrementAndGet();
+                    }
+                }));
+        return carregados.get();
+    }
+
+    // Deve ser chamado antes de gravar o CPF: se a gravacao falhar o CPF fica no
+    // filtro e so gera um falso positivo.
+    public void adicionar(String cpf) {
+        String normalizado = normalizar(cpf);
+        if (normalizado == null) {
+            return;
+        }
+        FiltroBloom atual = filtro;
+        if (atual != null) {
+            atual.adicionar(normalizado);
+        }
+        FiltroBloom novo = emConstrucao;
+        if (novo != null) {
+            novo.adicionar(normalizado);
+        }
+        if (atual != null && elementos.incrementAndGet() > capacidade && !reconstruindo.get()) {
+            logger.info("Filtro de CPFs passou da capacidade {}, remontando", capacidade);
+            Thread.ofPlatform().name("filtro-cpf").daemon().start(this::reconstruir);
+        }
+    }
+
+    // false quando o CPF com certeza nao esta cadastrado
+    public boolean talvezExista(String cpf) {
+        String normalizado = normalizar(cpf);
+        // filtro antes de anterior, na ordem inversa da troca
+        FiltroBloom atual = filtro;
+        FiltroBloom substituido = anterior;
+        if (normalizado == null || atual == null || atual.talvezContenha(normalizado)
+                || (substituido != null && substituido.talvezContenha(normalizado))) {
+            consultasTalvez.increment();
+            return true;
+        }
+        consultasNovo.increment();
+        return false;
+    }
+
+    // Chamado quando o banco nao encontrou um CPF que o filtro indicou como existente
+    public void registrarFalsoPositivo() {
+        if (filtro != null) {
+            falsosPositivos.increment();
+        }
+    }
+
+    // A mesma forma gravada no banco (Cpf.normalizar), vazio fica de fora
+    private static String normalizar(String cpf) {
+        String normalizado = Cpf.normalizar(cpf);
+        return normalizado == null || normalizado.isEmpty() ? null : normalizado;
+    }
+
+}
@@ -61,6 +61,13 @@ import web.controlevacinacao.validation.validator.UniqueValueAttributeValidator;
 //@UniqueValueAttribute(attribute = "email", service = EmailUnicoService.class, message = "Já existe um e-mail igual a este cadastrado")
 //public class Contato {
 //    private String email;
+//
+//D) To validate many objects at once (imports...) extend BatchUniqueValue instead,
+//checking all values with one query, and use UniqueValueBatchValidator
+//public interface EmailUnicoService extends BatchUniqueValue { }
+//
+//Map<Integer, List<String>> erros = uniqueValueBatchValidator.validate(contatos, "email", emailUnicoService,
+//		"Já existe um e-mail igual a este cadastrado", "O e-mail se repete na lista");
 
 @Target({ ElementType.TYPE, ElementType.ANNOTATION_TYPE })
 @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,19 @@
+package web.controlevacinacao.validation.service;
+
+import java.util.List;
+import java.util.Set;
+
+// Extension of UniqueValue for validating many objects at once (imports, bulk
+// saves...). The implementation should check the values of all objects with a
+// single query (IN, temporary table...) instead of one or two lookups per
+// object.
+//
+// Repetitions inside the list are found by UniqueValueBatchValidator, the
+// implementation only has to compare the objects with what is already stored.
+public interface BatchUniqueValue extends UniqueValue {
+
+	// Returns the positions in objects of the ones whose fieldName value is
+	// already used by another record
+	Set<Integer> findNotUnique(List<?> objects, String fieldName) throws UnsupportedOperationException;
+
+}
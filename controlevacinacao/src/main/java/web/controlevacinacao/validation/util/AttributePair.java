@@ -0,0 +1,41 @@
+package web.controlevacinacao.validation.util;
+
+// The two attributes compared by a class level validator. The accessors and the
+// type check are resolved once per validated class, isValid only reads the
+// values. A null expectedType accepts attributes of any type.
+public final class AttributePair {
+
+	private final String attribute1;
+	private final String attribute2;
+	private final Class<?> expectedType;
+	private final String typeMessage;
+
+	private final ClassValue<FieldAccessor[]> accessors = new ClassValue<>() {
+		@Override
+		protected FieldAccessor[] computeValue(Class<?> type) {
+			FieldAccessor accessor1 = FieldAccessors.get(type, attribute1);
+			FieldAccessor accessor2 = FieldAccessors.get(type, attribute2);
+			if (expectedType != null && (!ReflectUtil.isAssignableTo(accessor1.getType(), expectedType)
+					|| !ReflectUtil.isAssignableTo(accessor2.getType(), expectedType))) {
+				throw new IllegalArgumentException(typeMessage);
+			}
+			return new FieldAccessor[] { accessor1, accessor2 };
+		}
+	};
+
+	public AttributePair(String attribute1, String attribute2, Class<?> expectedType, String typeMessage) {
+		this.attribute1 = attribute1;
+		this.attribute2 = attribute2;
+		this.expectedType = expectedType;
+		this.typeMessage = typeMessage;
+	}
+
+	public Object value1(Object target) {
+		return accessors.get(target.getClass())[0].get(target);
+	}
+
+	public Object value2(Object target) {
+		return accessors.get(target.getClass())[1].get(target);
+	}
+
+}
@@ -0,0 +1,42 @@
+package web.controlevacinacao.validation.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+// Reads one field through a MethodHandle created once. The handle is adapted to
+// (Object)Object so it can be called with invokeExact, without the access checks
+// and argument arrays of Field.get.
+public final class FieldAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private final String name;
+	private final Class<?> type;
+	private final MethodHandle getter;
+
+	FieldAccessor(Field field) throws IllegalAccessException {
+		this.name = field.getName();
+		this.type = field.getType();
+		MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+		this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public Object get(Object target) {
+		try {
+			return (Object) getter.invokeExact(target);
+		} catch (Throwable e) {
+			throw new IllegalStateException("It was impossible to get the value of the attribute " + name, e);
+		}
+	}
+
+}
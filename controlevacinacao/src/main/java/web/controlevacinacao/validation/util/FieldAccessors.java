@@ -0,0 +1,46 @@
+package web.controlevacinacao.validation.util;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registry of field accessors shared by the validators. Each (class, attribute)
+// pair is resolved only once. ClassValue ties the cache to the class itself, so
+// classes from a discarded class loader (devtools restart) are not kept alive.
+public final class FieldAccessors {
+
+	private static final ClassValue<Map<String, FieldAccessor>> ACCESSORS = new ClassValue<>() {
+		@Override
+		protected Map<String, FieldAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private FieldAccessors() {
+	}
+
+	public static FieldAccessor get(Class<?> type, String attribute) {
+		Map<String, FieldAccessor> accessors = ACCESSORS.get(type);
+		FieldAccessor accessor = accessors.get(attribute);
+		if (accessor == null) {
+			accessor = accessors.computeIfAbsent(attribute, name -> create(type, name));
+		}
+		return accessor;
+	}
+
+	private static FieldAccessor create(Class<?> type, String attribute) {
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			try {
+				Field field = current.getDeclaredField(attribute);
+				return new FieldAccessor(field);
+			} catch (NoSuchFieldException e) {
+				// keep looking in the superclass
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("It was impossible to access the attribute " + attribute, e);
+			}
+		}
+		throw new IllegalArgumentException("It was impossible to get the attribute " + attribute + " from "
+				+ type.getName());
+	}
+
+}
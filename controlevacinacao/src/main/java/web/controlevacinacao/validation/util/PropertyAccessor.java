@@ -0,0 +1,42 @@
+package web.controlevacinacao.validation.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+// Reads one bean property through its getter, as BeanUtils.getProperty did, so
+// getters that compute or adapt the value keep being honoured. The read method
+// becomes a MethodHandle adapted to (Object)Object once, like FieldAccessor.
+public final class PropertyAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private final String name;
+	private final Class<?> type;
+	private final MethodHandle getter;
+
+	PropertyAccessor(String name, Method readMethod) throws IllegalAccessException {
+		this.name = name;
+		this.type = readMethod.getReturnType();
+		MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(readMethod.getDeclaringClass(), MethodHandles.lookup());
+		this.getter = lookup.unreflect(readMethod).asType(GETTER_TYPE);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public Object get(Object target) {
+		try {
+			return (Object) getter.invokeExact(target);
+		} catch (Throwable e) {
+			throw new IllegalStateException("It was impossible to get the value of the property " + name, e);
+		}
+	}
+
+}
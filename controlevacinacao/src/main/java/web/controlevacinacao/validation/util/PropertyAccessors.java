@@ -0,0 +1,46 @@
+package web.controlevacinacao.validation.util;
+
+import java.beans.PropertyDescriptor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeanUtils;
+
+// Registry of getter based accessors, the counterpart of FieldAccessors for the
+// validators that have to see the bean through its properties. Each (class,
+// property) pair is introspected only once.
+public final class PropertyAccessors {
+
+	private static final ClassValue<Map<String, PropertyAccessor>> ACCESSORS = new ClassValue<>() {
+		@Override
+		protected Map<String, PropertyAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private PropertyAccessors() {
+	}
+
+	public static PropertyAccessor get(Class<?> type, String property) {
+		Map<String, PropertyAccessor> accessors = ACCESSORS.get(type);
+		PropertyAccessor accessor = accessors.get(property);
+		if (accessor == null) {
+			accessor = accessors.computeIfAbsent(property, name -> create(type, name));
+		}
+		return accessor;
+	}
+
+	private static PropertyAccessor create(Class<?> type, String property) {
+		PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, property);
+		if (descriptor == null || descriptor.getReadMethod() == null) {
+			throw new IllegalArgumentException("It was impossible to get the property " + property + " from "
+					+ type.getName());
+		}
+		try {
+			return new PropertyAccessor(property, descriptor.getReadMethod());
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("It was impossible to access the property " + property, e);
+		}
+	}
+
+}
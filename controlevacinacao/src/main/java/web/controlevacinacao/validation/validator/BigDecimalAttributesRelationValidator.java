@@ -1,11 +1,11 @@
 package web.controlevacinacao.validation.validator;
 
-import java.lang.reflect.Field;
 import java.math.BigDecimal;
 
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import web.controlevacinacao.validation.BigDecimalAttributesRelation;
+import web.controlevacinacao.validation.util.AttributePair;
 import web.controlevacinacao.validation.util.AttributesRelation;
 
 public class BigDecimalAttributesRelationValidator implements ConstraintValidator<BigDecimalAttributesRelation, Object> {
@@ -13,12 +13,14 @@ public class BigDecimalAttributesRelationValidator implements ConstraintValidato
 	private String attribute1;
 	private String attribute2;
 	private AttributesRelation relation;
+	private AttributePair attributes;
 
 	@Override
 	public void initialize(final BigDecimalAttributesRelation annotation) {
 		attribute1 = annotation.attribute1();
 		attribute2 = annotation.attribute2();
 		relation = annotation.relation();
+		attributes = new AttributePair(attribute1, attribute2, BigDecimal.class, "Attributes should be of type BigDecimal");
 	}
 
 	@Override
@@ -26,26 +28,8 @@ public class BigDecimalAttributesRelationValidator implements ConstraintValidato
 		if (value == null) {
 			return true;
 		}
-		Field field1, field2;
-		try {
-			field1 = value.getClass().getDeclaredField(attribute1);
-			field2 = value.getClass().getDeclaredField(attribute2);
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get the attributes from it's names");
-		}
-		if (field1.getType() != BigDecimal.class || field2.getType() != BigDecimal.class) {
-			throw new IllegalArgumentException("Attributes should be of type BigDecimal");
-		}
-		field1.setAccessible(true);
-		field2.setAccessible(true);
-
-		BigDecimal value1, value2;
-		try {
-			value1 = (BigDecimal) field1.get(value);
-			value2 = (BigDecimal) field2.get(value);
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get attributes values");
-		}
+		BigDecimal value1 = (BigDecimal) attributes.value1(value);
+		BigDecimal value2 = (BigDecimal) attributes.value2(value);
 
 		String message = "";
 		boolean valid = false;
@@ -1,11 +1,11 @@
 package web.controlevacinacao.validation.validator;
 
-import java.lang.reflect.Field;
 import java.math.BigInteger;
 
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import web.controlevacinacao.validation.BigIntegerAttributesRelation;
+import web.controlevacinacao.validation.util.AttributePair;
 import web.controlevacinacao.validation.util.AttributesRelation;
 
 public class BigIntegerAttributesRelationValidator implements ConstraintValidator<BigIntegerAttributesRelation, Object> {
@@ -13,12 +13,14 @@ public class BigIntegerAttributesRelationValidator implements ConstraintValidato
 	private String attribute1;
 	private String attribute2;
 	private AttributesRelation relation;
+	private AttributePair attributes;
 
 	@Override
 	public void initialize(final BigIntegerAttributesRelation annotation) {
 		attribute1 = annotation.attribute1();
 		attribute2 = annotation.attribute2();
 		relation = annotation.relation();
+		attributes = new AttributePair(attribute1, attribute2, BigInteger.class, "Attributes should be of type BigInteger");
 	}
 
 	@Override
@@ -26,26 +28,8 @@ public class BigIntegerAttributesRelationValidator implements ConstraintValidato
 		if (value == null) {
 			return true;
 		}
-		Field field1, field2;
-		try {
-			field1 = value.getClass().getDeclaredField(attribute1);
-			field2 = value.getClass().getDeclaredField(attribute2);
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get the attributes from it's names");
-		}
-		if (field1.getType() != BigInteger.class || field2.getType() != BigInteger.class) {
-			throw new IllegalArgumentException("Attributes should be of type BigInteger");
-		}
-		field1.setAccessible(true);
-		field2.setAccessible(true);
-
-		BigInteger value1, value2;
-		try {
-			value1 = (BigInteger) field1.get(value);
-			value2 = (BigInteger) field2.get(value);
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get attributes values");
-		}
+		BigInteger value1 = (BigInteger) attributes.value1(value);
+		BigInteger value2 = (BigInteger) attributes.value2(value);
 
 		String message = "";
 		boolean valid = false;
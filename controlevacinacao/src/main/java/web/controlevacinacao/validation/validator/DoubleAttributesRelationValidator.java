@@ -1,18 +1,17 @@
 package web.controlevacinacao.validation.validator;
 
-import java.lang.reflect.Field;
-
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import web.controlevacinacao.validation.DoubleAttributesRelation;
+import web.controlevacinacao.validation.util.AttributePair;
 import web.controlevacinacao.validation.util.AttributesRelation;
-import web.controlevacinacao.validation.util.ReflectUtil;
 
 public class DoubleAttributesRelationValidator implements ConstraintValidator<DoubleAttributesRelation, Object> {
 
 	private String attribute1;
 	private String attribute2;
 	private AttributesRelation relation;
+	private AttributePair attributes;
 	private double epsilon;
 
 	@Override
@@ -20,6 +19,7 @@ public class DoubleAttributesRelationValidator implements ConstraintValidator<Do
 		attribute1 = annotation.attribute1();
 		attribute2 = annotation.attribute2();
 		relation = annotation.relation();
+		attributes = new AttributePair(attribute1, attribute2, Double.class, "Attributes should be of type Double/double");
 		epsilon = annotation.epsilon();
 	}
 
@@ -28,46 +28,20 @@ public class DoubleAttributesRelationValidator implements ConstraintValidator<Do
 		if (value == null) {
 			return true;
 		}
-		Field field1, field2;
-		try {
-			field1 = value.getClass().getDeclaredField(attribute1);
-			field2 = value.getClass().getDeclaredField(attribute2);
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get the attributes from it's names");
-		}
-		if (!ReflectUtil.isAssignableTo(field1.getType(), Double.class) || !ReflectUtil.isAssignableTo(field2.getType(), Double.class)) {
-			throw new IllegalArgumentException("Attributes should be of type Double/double");
+		Double aux1 = (Double) attributes.value1(value);
+		if (aux1 == null) {
+			ctx.disableDefaultConstraintViolation();
+			ctx.buildConstraintViolationWithTemplate("O atributo1 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
+			return false;
 		}
-		field1.setAccessible(true);
-		field2.setAccessible(true);
-
-		double value1, value2;
-		try {
-			if (field1.getType() == Double.class) {
-				Double aux = (Double) field1.get(value);
-				if (aux == null) {
-					ctx.disableDefaultConstraintViolation();
-					ctx.buildConstraintViolationWithTemplate("O atributo1 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
-					return false;
-				}
-				value1 = aux;
-			} else {
-				value1 = (double) field1.get(value);
-			}
-			if (field2.getType() == Double.class) {
-				Double aux = (Double) field2.get(value);
-				if (aux == null) {
-					ctx.disableDefaultConstraintViolation();
-					ctx.buildConstraintViolationWithTemplate("O atributo2 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
-					return false;
-				}
-				value2 = aux;
-			} else {
-				value2 = (double) field2.get(value);
-			}
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get the attributes values");
+		Double aux2 = (Double) attributes.value2(value);
+		if (aux2 == null) {
+			ctx.disableDefaultConstraintViolation();
+			ctx.buildConstraintViolationWithTemplate("O atributo2 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
+			return false;
 		}
+		double value1 = aux1;
+		double value2 = aux2;
 
 		String message = "";
 		boolean valid = false;
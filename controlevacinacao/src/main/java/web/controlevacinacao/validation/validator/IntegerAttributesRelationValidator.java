@@ -1,24 +1,24 @@
 package web.controlevacinacao.validation.validator;
 
-import java.lang.reflect.Field;
-
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import web.controlevacinacao.validation.IntegerAttributesRelation;
+import web.controlevacinacao.validation.util.AttributePair;
 import web.controlevacinacao.validation.util.AttributesRelation;
-import web.controlevacinacao.validation.util.ReflectUtil;
 
 public class IntegerAttributesRelationValidator implements ConstraintValidator<IntegerAttributesRelation, Object> {
 
 	private String attribute1;
 	private String attribute2;
 	private AttributesRelation relation;
+	private AttributePair attributes;
 
 	@Override
 	public void initialize(final IntegerAttributesRelation annotation) {
 		attribute1 = annotation.attribute1();
 		attribute2 = annotation.attribute2();
 		relation = annotation.relation();
+		attributes = new AttributePair(attribute1, attribute2, Integer.class, "Attributes should be of type Integer/int");
 	}
 
 	@Override
@@ -27,46 +27,20 @@ public class IntegerAttributesRelationValidator implements ConstraintValidator<I
 			return true;
 		}
 
-		Field field1, field2;
-		try {
-			field1 = value.getClass().getDeclaredField(attribute1);
-			field2 = value.getClass().getDeclaredField(attribute2);
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get the attributes from it's names");
-		}
-		if (!ReflectUtil.isAssignableTo(field1.getType(), Integer.class) || !ReflectUtil.isAssignableTo(field2.getType(), Integer.class)) {
-			throw new IllegalArgumentException("Attributes should be of type Integer/int");
+		Integer aux1 = (Integer) attributes.value1(value);
+		if (aux1 == null) {
+			ctx.disableDefaultConstraintViolation();
+			ctx.buildConstraintViolationWithTemplate("O atributo1 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
+			return false;
 		}
-		field1.setAccessible(true);
-		field2.setAccessible(true);
-
-		int value1, value2;
-		try {
-			if (field1.getType() == Integer.class) {
-				Integer aux = (Integer) field1.get(value);
-				if (aux == null) {
-					ctx.disableDefaultConstraintViolation();
-					ctx.buildConstraintViolationWithTemplate("O atributo1 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
-					return false;
-				}
-				value1 = aux;
-			} else {
-				value1 = (int) field1.get(value);
-			}
-			if (field2.getType() == Integer.class) {
-				Integer aux = (Integer) field2.get(value);
-				if (aux == null) {
-					ctx.disableDefaultConstraintViolation();
-					ctx.buildConstraintViolationWithTemplate("O atributo2 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
-					return false;
-				}
-				value2 = aux;
-			} else {
-				value2 = (int) field2.get(value);
-			}
-		} catch (final Exception ignore) {
-			throw new RuntimeException("It was impossible to get the attributes values");
+		Integer aux2 = (Integer) attributes.value2(value);
+		if (aux2 == null) {
+			ctx.disableDefaultConstraintViolation();
+			ctx.buildConstraintViolationWithTemplate("O atributo2 não pode ser null").addPropertyNode(attribute1).addConstraintViolation();
+			return false;
 		}
+		int value1 = aux1;
+		int value2 = aux2;
 
 		String message = "";
 		boolean valid = false;
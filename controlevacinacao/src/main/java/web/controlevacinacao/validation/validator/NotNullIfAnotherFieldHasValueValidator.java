@@ -1,17 +1,36 @@
 package web.controlevacinacao.validation.validator;
 
-import org.apache.commons.beanutils.BeanUtils;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import web.controlevacinacao.validation.NotNullIfAnotherFieldHasValue;
+import web.controlevacinacao.validation.util.PropertyAccessor;
+import web.controlevacinacao.validation.util.PropertyAccessors;
 
 public class NotNullIfAnotherFieldHasValueValidator implements ConstraintValidator<NotNullIfAnotherFieldHasValue, Object> {
 
+	// Used when fieldValue can not be converted to the type of the field: no value
+	// of the field will ever be equal to it
+	private static final Object NO_MATCH = new Object();
+
 	private String fieldName;
 	private String expectedFieldValue;
 	private String dependFieldName;
 
+	// The getters and fieldValue converted to the type of the property, once per
+	// validated class, so isValid compares the raw values without converting
+	// them to String. The values are read through the getters, as BeanUtils did
+	private final ClassValue<Attributes> attributes = new ClassValue<>() {
+		@Override
+		protected Attributes computeValue(Class<?> type) {
+			PropertyAccessor field = PropertyAccessors.get(type, fieldName);
+			PropertyAccessor dependField = PropertyAccessors.get(type, dependFieldName);
+			return new Attributes(field, dependField, convert(expectedFieldValue, field.getType()), expectedFieldValue);
+		}
+	};
+
 	@Override
 	public void initialize(final NotNullIfAnotherFieldHasValue annotation) {
 		fieldName = annotation.fieldName();
@@ -25,18 +44,84 @@ public class NotNullIfAnotherFieldHasValueValidator implements ConstraintValidat
 			return true;
 		}
 		try {
-			final String fieldValue = BeanUtils.getProperty(value, fieldName);
-			final String dependFieldValue = BeanUtils.getProperty(value, dependFieldName);
-			if (expectedFieldValue.equals(fieldValue) && dependFieldValue == null) {
+			final Attributes resolved = attributes.get(value.getClass());
+			final Object fieldValue = resolved.field().get(value);
+			if (resolved.matches(fieldValue) && resolved.dependField().get(value) == null) {
 				ctx.buildConstraintViolationWithTemplate(ctx.getDefaultConstraintMessageTemplate())
 				    .addPropertyNode(dependFieldName)
 				    .addConstraintViolation()
 				    .disableDefaultConstraintViolation();
 				return false;
 			}
-		} catch (final Exception ignore) {
+		} catch (final IllegalArgumentException | IllegalStateException ignore) {
 			// we can ignore
 		}
 		return true;
 	}
-}
\ No newline at end of file
+
+	// Same conversions BeanUtils did in the opposite direction (value to String)
+	private static Object convert(String text, Class<?> type) {
+		try {
+			if (type == String.class) {
+				return text;
+			}
+			if (type.isEnum()) {
+				for (Object constant : type.getEnumConstants()) {
+					if (((Enum<?>) constant).name().equals(text)) {
+						return constant;
+					}
+				}
+				return NO_MATCH;
+			}
+			if (type == Boolean.class || type == boolean.class) {
+				return "true".equals(text) ? Boolean.TRUE : "false".equals(text) ? Boolean.FALSE : NO_MATCH;
+			}
+			if (type == Integer.class || type == int.class) {
+				return Integer.valueOf(text);
+			}
+			if (type == Long.class || type == long.class) {
+				return Long.valueOf(text);
+			}
+			if (type == Short.class || type == short.class) {
+				return Short.valueOf(text);
+			}
+			if (type == Byte.class || type == byte.class) {
+				return Byte.valueOf(text);
+			}
+			if (type == Double.class || type == double.class) {
+				return Double.valueOf(text);
+			}
+			if (type == Float.class || type == float.class) {
+				return Float.valueOf(text);
+			}
+			if (type == Character.class || type == char.class) {
+				return text.length() == 1 ? Character.valueOf(text.charAt(0)) : NO_MATCH;
+			}
+			if (type == BigDecimal.class) {
+				// equals compares the scale too, as the String comparison did
+				return new BigDecimal(text);
+			}
+			if (type == BigInteger.class) {
+				return new BigInteger(text);
+			}
+		} catch (final NumberFormatException e) {
+			return NO_MATCH;
+		}
+		// Other types keep the comparison by toString
+		return null;
+	}
+
+	private record Attributes(PropertyAccessor field, PropertyAccessor dependField, Object expected, String expectedText) {
+
+		boolean matches(Object fieldValue) {
+			if (fieldValue == null) {
+				return false;
+			}
+			if (expected == null) {
+				return expectedText.equals(fieldValue.toString());
+			}
+			return expected.equals(fieldValue);
+		}
+
+	}
+}
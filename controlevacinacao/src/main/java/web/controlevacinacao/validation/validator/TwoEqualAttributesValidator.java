@@ -1,10 +1,9 @@
 package web.controlevacinacao.validation.validator;
 
-import java.lang.reflect.Field;
-
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import web.controlevacinacao.validation.TwoEqualAttributes;
+import web.controlevacinacao.validation.util.AttributePair;
 
 //@TwoEqualAttributes(attribute1 = "email", attribute2 = "emailRepetido")
 //
@@ -17,24 +16,22 @@ public class TwoEqualAttributesValidator implements ConstraintValidator<TwoEqual
 	private String attribute1;
 	private String attribute2;
 	private String message;
+	private AttributePair attributes;
 
 	@Override
 	public void initialize(final TwoEqualAttributes constraintAnnotation) {
 		attribute1 = constraintAnnotation.attribute1();  // "email"
 		attribute2 = constraintAnnotation.attribute2();  // "emailAgain" 
 		message = constraintAnnotation.message();
+		attributes = new AttributePair(attribute1, attribute2, null, null);
 	}
 
 	@Override
 	public boolean isValid(final Object value, final ConstraintValidatorContext context) {
 		boolean valid = true;
 		try {
-			Field field1 = value.getClass().getDeclaredField(attribute1);
-			field1.setAccessible(true);
-			final Object value1 = field1.get(value);
-			Field field2 = value.getClass().getDeclaredField(attribute2);
-			field2.setAccessible(true);
-			final Object value2 = field2.get(value);
+			final Object value1 = attributes.value1(value);
+			final Object value2 = attributes.value2(value);
 			
 //			import org.springframework.beans.BeanWrapperImpl;
 //			final Object firstObj = new BeanWrapperImpl(value).getPropertyValue(attribute1);
@@ -0,0 +1,74 @@
+package web.controlevacinacao.validation.validator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import web.controlevacinacao.validation.service.BatchUniqueValue;
+import web.controlevacinacao.validation.service.UniqueValue;
+import web.controlevacinacao.validation.util.FieldAccessor;
+import web.controlevacinacao.validation.util.FieldAccessors;
+
+// Bulk version of UniqueValueAttributeValidator. Repetitions inside the list are
+// found in memory and the comparison with the stored records is done by the
+// service: with a BatchUniqueValue in one call for the whole list, with a plain
+// UniqueValue one object at a time, as the single validator would.
+@Component
+public class UniqueValueBatchValidator {
+
+	// Returns the error messages of each invalid object by its position in
+	// objects. Objects with a null attribute are not checked.
+	public Map<Integer, List<String>> validate(List<?> objects, String attribute, UniqueValue service,
+			String message, String repeatedMessage) {
+		Map<Integer, List<String>> errors = new LinkedHashMap<>();
+		if (objects.isEmpty()) {
+			return errors;
+		}
+
+		List<Object> candidates = new ArrayList<>(objects.size());
+		List<Integer> positions = new ArrayList<>(objects.size());
+		Map<Object, Integer> firstPosition = new HashMap<>(objects.size() * 2);
+		for (int i = 0; i < objects.size(); i++) {
+			Object object = objects.get(i);
+			if (object == null) {
+				continue;
+			}
+			FieldAccessor accessor = FieldAccessors.get(object.getClass(), attribute);
+			Object value = accessor.get(object);
+			if (value == null) {
+				continue;
+			}
+			// Only the first occurrence goes to the service, the others are already invalid
+			if (firstPosition.putIfAbsent(value, i) != null) {
+				addError(errors, i, repeatedMessage);
+				continue;
+			}
+			candidates.add(object);
+			positions.add(i);
+		}
+
+		if (service instanceof BatchUniqueValue batchService) {
+			Set<Integer> notUnique = batchService.findNotUnique(candidates, attribute);
+			for (Integer candidate : notUnique) {
+				addError(errors, positions.get(candidate), message);
+			}
+		} else {
+			for (int i = 0; i < candidates.size(); i++) {
+				if (!service.isValueUnique(candidates.get(i), attribute)) {
+					addError(errors, positions.get(i), message);
+				}
+			}
+		}
+		return errors;
+	}
+
+	private static void addError(Map<Integer, List<String>> errors, int position, String message) {
+		errors.computeIfAbsent(position, p -> new ArrayList<>(1)).add(message);
+	}
+
+}
@@ -1,8 +1,5 @@
 package web.controlevacinacao.validation.validator;
 
-import java.util.Arrays;
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,131 +18,130 @@ import web.controlevacinacao.validation.ValidUsername;
 public class ValidUsernameValidator implements ConstraintValidator<ValidUsername, String> {
 
 	private static final Logger logger = LoggerFactory.getLogger(ValidUsernameValidator.class);
-	
-	private static final List<String> LISTA_CARACTERES_ESPECIAIS = Arrays.asList("!", "@", "#", "$", "%", "&", "*", ".", ",", "~", "^", "/",
-		"\\", "+", ":", ";", "=", "'", "`", "[", "]", "(", ")", "{", "}", "<", ">", "-", "_");
-	private static final List<String> LISTA_NOMES_USUARIO_PROIBIDOS = Arrays.asList("root", "eu", "admin");
 
-	private String mensagemFinal = "";
-	
-	@Override
-	public boolean isValid(String nomeUsuario, ConstraintValidatorContext constraintValidatorContext) {
-		mensagemFinal = "";
-		if (nomeUsuario != null) {
-			//Vai mostrar todos os erros de uma vez.
-			boolean valido = peloMenosUmaLetra(nomeUsuario);
-			valido &= peloMenosUmDigito(nomeUsuario);
-			valido &= peloMenosUmCaractereEspecial(nomeUsuario);
-			valido &= tamanhoMinimo(nomeUsuario);
-			valido &= tamanhoMaximo(nomeUsuario);
-			valido &= peloMenosUmCaractereMaiusculo(nomeUsuario);
-			valido &= peloMenosUmCaractereMinusculo(nomeUsuario);
-			valido &= naoEhProibido(nomeUsuario);
-			
-			//Vai mostrar os erros um a um até que ele seja arrumado, nessa ordem.
-//			boolean valido = peloMenosUmaLetra(nomeUsuario) &&
-//				   peloMenosUmDigito(nomeUsuario) &&
-//				   peloMenosUmCaractereEspecial(nomeUsuario) &&
-//				   tamanhoMinimo(nomeUsuario) &&
-//				   tamanhoMaximo(nomeUsuario) &&
-//				   peloMenosUmCaractereMaiusculo(nomeUsuario) &&
-//				   peloMenosUmCaractereMinusculo(nomeUsuario) &&
-//				   naoEhProibido(nomeUsuario);
+	private static final String CARACTERES_ESPECIAIS = "!@#$%&*.,~^/\\+:;='`[](){}<>-_";
+	private static final String[] NOMES_USUARIO_PROIBIDOS = { "root", "eu", "admin" };
 
-			if (!valido) {
-				constraintValidatorContext.buildConstraintViolationWithTemplate(mensagemFinal)
-				.addConstraintViolation()
-				.disableDefaultConstraintViolation();
-			}
-			return valido;
-		} else {
-			return true;
-		}
-	}
+	// Um bit para cada regra, ligado quando a regra foi atendida
+	private static final int LETRA = 1;
+	private static final int DIGITO = 1 << 1;
+	private static final int ESPECIAL = 1 << 2;
+	private static final int TAMANHO_MINIMO = 1 << 3;
+	private static final int TAMANHO_MAXIMO = 1 << 4;
+	private static final int MAIUSCULO = 1 << 5;
+	private static final int MINUSCULO = 1 << 6;
+	private static final int NAO_PROIBIDO = 1 << 7;
+	private static final int TODAS = (1 << 8) - 1;
+
+	// Na ordem dos bits acima
+	private static final String[] MENSAGENS = { "Ao menos uma letra", "Ao menos um dígito",
+			"Ao menos um caractere especial", "Tamanho mínimo de 5 caracteres", "Tamanho máximo de 20 caracteres",
+			"Ao menos um caractere maiúsculo", "Ao menos um caractere minúsculo", "Não pode ser um nome proibido" };
+
+	// Classes dos caracteres ASCII, os outros usam os metodos de Character
+	private static final byte[] CLASSES_ASCII = new byte[128];
+	// Mensagem final de cada combinacao de regras nao atendidas, montadas uma
+	// unica vez: a validacao nao cria Strings nem guarda estado na instancia
+	private static final String[] MENSAGENS_FINAIS = new String[TODAS + 1];
 
-	private boolean peloMenosUmaLetra(String nomeUsuario) {
-		for (int pos = 0; pos < nomeUsuario.length(); pos++) {
-			if (Character.isAlphabetic(nomeUsuario.charAt(pos))) {
-				return true;
+	static {
+		for (char c = 0; c < 128; c++) {
+			int classes = 0;
+			if (Character.isAlphabetic(c)) {
+				classes |= LETRA;
 			}
-		}
-		acrescentarNaMensagemFinal("Ao menos uma letra");
-		return false;
-	}
-	
-	private boolean peloMenosUmDigito(String nomeUsuario) {
-		for (int pos = 0; pos < nomeUsuario.length(); pos++) {
-			if (Character.isDigit(nomeUsuario.charAt(pos))) {
-				return true;
+			if (Character.isDigit(c)) {
+				classes |= DIGITO;
+			}
+			if (CARACTERES_ESPECIAIS.indexOf(c) >= 0) {
+				classes |= ESPECIAL;
+			}
+			if (Character.isUpperCase(c)) {
+				classes |= MAIUSCULO;
+			}
+			if (Character.isLowerCase(c)) {
+				classes |= MINUSCULO;
 			}
+			CLASSES_ASCII[c] = (byte) classes;
 		}
-		acrescentarNaMensagemFinal("Ao menos um dígito");
-		return false;
-	}
-	
-	private boolean peloMenosUmCaractereEspecial(String nomeUsuario) {
-		logger.debug("Recebeu o nomeUsuario: {}", nomeUsuario);
-		for (int pos = 0; pos < nomeUsuario.length(); pos++) {
-			if (LISTA_CARACTERES_ESPECIAIS.contains(String.valueOf(nomeUsuario.charAt(pos)))) {
-				logger.debug("O nomeUsuario: {} tem um caractere especial na posição: {}", nomeUsuario, pos);
-				return true;
+		for (int faltando = 0; faltando <= TODAS; faltando++) {
+			StringBuilder mensagemFinal = new StringBuilder();
+			for (int regra = 0; regra < MENSAGENS.length; regra++) {
+				if ((faltando & (1 << regra)) != 0) {
+					if (mensagemFinal.length() > 0) {
+						mensagemFinal.append("; ");
+					}
+					mensagemFinal.append(MENSAGENS[regra]);
+				}
 			}
+			MENSAGENS_FINAIS[faltando] = mensagemFinal.toString();
 		}
-		acrescentarNaMensagemFinal("Ao menos um caractere especial");
-		return false;
 	}
-	
-	private boolean tamanhoMinimo(String nomeUsuario) {
-		if (nomeUsuario.length() > 5) {
+
+	@Override
+	public boolean isValid(String nomeUsuario, ConstraintValidatorContext constraintValidatorContext) {
+		if (nomeUsuario == null) {
 			return true;
-		} else {
-			acrescentarNaMensagemFinal("Tamanho mínimo de 5 caracteres");
-			return false;
 		}
-	}
-
-	private boolean tamanhoMaximo(String nomeUsuario) {
+		//Vai mostrar todos os erros de uma vez.
+		int atendidas = classificar(nomeUsuario);
+		if (nomeUsuario.length() > 5) {
+			atendidas |= TAMANHO_MINIMO;
+		}
 		if (nomeUsuario.length() < 21) {
-			return true;
-		} else {
-			acrescentarNaMensagemFinal("Tamanho máximo de 20 caracteres");
-			return false;
+			atendidas |= TAMANHO_MAXIMO;
+		}
+		if (naoEhProibido(nomeUsuario)) {
+			atendidas |= NAO_PROIBIDO;
 		}
-	}
 
-	private boolean peloMenosUmCaractereMaiusculo(String nomeUsuario) {
-		for (int pos = 0; pos < nomeUsuario.length(); pos++) {
-			if (Character.isUpperCase(nomeUsuario.charAt(pos))) {
-				return true;
-			}
+		int faltando = ~atendidas & TODAS;
+		if (faltando != 0) {
+			logger.debug("O nomeUsuario: {} não atende as regras: {}", nomeUsuario, MENSAGENS_FINAIS[faltando]);
+			constraintValidatorContext.buildConstraintViolationWithTemplate(MENSAGENS_FINAIS[faltando])
+			.addConstraintViolation()
+			.disableDefaultConstraintViolation();
+			return false;
 		}
-		acrescentarNaMensagemFinal("Ao menos um caractere maiúsculo");
-		return false;
+		return true;
 	}
 
-	private boolean peloMenosUmCaractereMinusculo(String nomeUsuario) {
-		for (int pos = 0; pos < nomeUsuario.length(); pos++) {
-			if (Character.isLowerCase(nomeUsuario.charAt(pos))) {
-				return true;
+	// Uma unica passada pelo nome, juntando as classes de todos os caracteres.
+	// Para assim que as regras de caracteres foram todas atendidas.
+	private static int classificar(String nomeUsuario) {
+		final int regrasCaracteres = LETRA | DIGITO | ESPECIAL | MAIUSCULO | MINUSCULO;
+		int classes = 0;
+		for (int pos = 0; pos < nomeUsuario.length() && classes != regrasCaracteres; pos++) {
+			char c = nomeUsuario.charAt(pos);
+			if (c < 128) {
+				classes |= CLASSES_ASCII[c];
+			} else {
+				if (Character.isAlphabetic(c)) {
+					classes |= LETRA;
+				}
+				if (Character.isDigit(c)) {
+					classes |= DIGITO;
+				}
+				if (Character.isUpperCase(c)) {
+					classes |= MAIUSCULO;
+				}
+				if (Character.isLowerCase(c)) {
+					classes |= MINUSCULO;
+				}
 			}
 		}
-		acrescentarNaMensagemFinal("Ao menos um caractere minúsculo");
-		return false;
+		return classes;
 	}
 
-	private boolean naoEhProibido(String nomeUsuario) {
-		if (!LISTA_NOMES_USUARIO_PROIBIDOS.contains(nomeUsuario.toLowerCase())) {
-			return true;
-		} else {
-			acrescentarNaMensagemFinal("Não pode ser um nome proibido");
-			return false;
-		}
-	}
-	
-	private void acrescentarNaMensagemFinal(String mensagem) {
-		if (!mensagemFinal.isBlank()) {
-			mensagemFinal += "; ";
+	// Compara o nome em minusculas, como antes: equalsIgnoreCase aceitaria tambem
+	// "admın" (i sem ponto). Os nomes proibidos sao ASCII e so nomes com o mesmo
+	// tamanho podem ficar iguais a eles, os outros nao criam a String em minusculas.
+	private static boolean naoEhProibido(String nomeUsuario) {
+		for (String proibido : NOMES_USUARIO_PROIBIDOS) {
+			if (proibido.length() == nomeUsuario.length() && proibido.equals(nomeUsuario.toLowerCase())) {
+				return false;
+			}
 		}
-		mensagemFinal += mensagem;
+		return true;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Indices para os filtros lower(coluna) LIKE '%texto%' das pesquisas
+CREATE INDEX vacina_nome_trgm_idx ON public.vacina USING gin (lower(nome) gin_trgm_ops);
+CREATE INDEX vacina_descricao_trgm_idx ON public.vacina USING gin (lower(descricao) gin_trgm_ops);
+CREATE INDEX pessoa_nome_trgm_idx ON public.pessoa USING gin (lower(nome) gin_trgm_ops);
+CREATE INDEX pessoa_cpf_trgm_idx ON public.pessoa USING gin (lower(cpf) gin_trgm_ops);
@@ -0,0 +1,4 @@
+-- Indices para a busca por palavras (pesquisa.modo-busca=PALAVRAS)
+CREATE INDEX vacina_nome_fts_idx ON public.vacina USING gin (to_tsvector('portuguese', coalesce(nome, '')));
+CREATE INDEX vacina_descricao_fts_idx ON public.vacina USING gin (to_tsvector('portuguese', coalesce(descricao, '')));
+CREATE INDEX pessoa_nome_fts_idx ON public.pessoa USING gin (to_tsvector('portuguese', coalesce(nome, '')));
@@ -0,0 +1,4 @@
+-- Os codigos passam a ser reservados em blocos de 50 pelo Hibernate (otimizador pooled-lo),
+-- o incremento precisa ser igual ao allocationSize das entidades
+ALTER SEQUENCE public.vacina_codigo_seq INCREMENT BY 50;
+ALTER SEQUENCE public.pessoa_codigo_seq INCREMENT BY 50;
@@ -0,0 +1,3 @@
+-- Indice para as verificacoes de unicidade do CPF (cpf = ? e cpf IN (...)). O indice
+-- trigram de lower(cpf) so atende os filtros LIKE das pesquisas
+CREATE INDEX pessoa_cpf_idx ON public.pessoa (cpf);
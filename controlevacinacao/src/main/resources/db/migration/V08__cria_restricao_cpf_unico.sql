@@ -0,0 +1,41 @@
+-- O CPF nao pode se repetir. A verificacao da aplicacao (filtro de CPFs e consulta
+-- ao banco) nao ve gravacoes concorrentes, a restricao garante a unicidade. O indice
+-- da restricao atende as mesmas consultas do indice criado na V07, que e removido.
+--
+-- A aplicacao grava o CPF so com os digitos (Cpf.normalizar), a mesma forma que o
+-- filtro de CPFs e as consultas comparam. Os CPFs ja gravados passam para essa forma
+-- antes da restricao, senao "123.456.789-09" e "12345678909" continuariam distintos.
+UPDATE public.pessoa SET cpf = regexp_replace(cpf, '[^0-9]', '', 'g')
+WHERE cpf ~ '[0-9]' AND cpf ~ '[^0-9]';
+UPDATE public.pessoa SET cpf = btrim(cpf)
+WHERE cpf !~ '[0-9]' AND cpf <> btrim(cpf);
+
+-- Cadastros identicos (mesmo nome, CPF e status) sao a mesma pessoa gravada duas
+-- vezes: fica o de menor codigo. Nenhuma tabela referencia pessoa.
+DELETE FROM public.pessoa p
+USING public.pessoa anterior
+WHERE anterior.cpf = p.cpf
+  AND anterior.nome IS NOT DISTINCT FROM p.nome
+  AND anterior.status IS NOT DISTINCT FROM p.status
+  AND anterior.codigo < p.codigo;
+
+-- CPFs repetidos em pessoas diferentes precisam ser corrigidos por alguem: a migracao
+-- para com uma mensagem em vez do erro generico da restricao. O procedimento esta em
+-- manutencao/cpfs-repetidos.sql, na raiz do projeto.
+DO $$
+DECLARE
+    repetidos bigint;
+    exemplos text;
+BEGIN
+    SELECT count(*), string_agg(cpf, ', ')
+    INTO repetidos, exemplos
+    FROM (SELECT cpf FROM public.pessoa WHERE cpf IS NOT NULL GROUP BY cpf HAVING count(*) > 1 ORDER BY cpf) r;
+    IF repetidos > 0 THEN
+        RAISE EXCEPTION 'Existem % CPFs usados por mais de uma pessoa (%). Corrija-os com manutencao/cpfs-repetidos.sql e reinicie a aplicacao',
+            repetidos, left(exemplos, 200);
+    END IF;
+END $$;
+
+ALTER TABLE public.pessoa ADD CONSTRAINT pessoa_cpf_unico UNIQUE (cpf);
+
+DROP INDEX public.pessoa_cpf_idx;
@@ -0,0 +1,10 @@
+-- Indices para a paginacao por chave das pesquisas (PaginacaoUtil.condicaoCursor):
+-- status = :status and (coluna, codigo) > (:cursorValor, :cursorCodigo) order by coluna, codigo
+-- e lido direto do indice a partir do cursor, nos dois sentidos. Os registros com a coluna
+-- nula ficam no fim do indice e sao lidos pela condicao coluna is null, tambem pelo indice.
+CREATE INDEX vacina_status_codigo_idx ON public.vacina (status, codigo);
+CREATE INDEX vacina_status_nome_codigo_idx ON public.vacina (status, nome, codigo);
+CREATE INDEX vacina_status_descricao_codigo_idx ON public.vacina (status, descricao, codigo);
+CREATE INDEX pessoa_status_codigo_idx ON public.pessoa (status, codigo);
+CREATE INDEX pessoa_status_nome_codigo_idx ON public.pessoa (status, nome, codigo);
+CREATE INDEX pessoa_status_cpf_codigo_idx ON public.pessoa (status, cpf, codigo);
@@ -0,0 +1,154 @@
+package web.controlevacinacao.csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LeitorCsvTest {
+
+    private static final int TAMANHO_MAXIMO_REGISTRO = 64 * 1024;
+
+    private static LeitorCsv abrir(String conteudo) throws IOException {
+        return LeitorCsv.abrir(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void leRegistrosSeparadosPorVirgula() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\nAna,12345678901\nBruno,98765432100")) {
+            assertEquals(',', leitor.getSeparador());
+            assertEquals(List.of("nome", "cpf"), leitor.proximoRegistro());
+            assertEquals(List.of("Ana", "12345678901"), leitor.proximoRegistro());
+            assertEquals(List.of("Bruno", "98765432100"), leitor.proximoRegistro());
+            assertNull(leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void detectaPontoEVirgulaPeloCabecalho() throws IOException {
+        try (LeitorCsv leitor = abrir("nome;cpf\nSilva, Ana;123.456.789-01\n")) {
+            assertEquals(';', leitor.getSeparador());
+            assertEquals(List.of("nome", "cpf"), leitor.proximoRegistro());
+            assertEquals(List.of("Silva, Ana", "123.456.789-01"), leitor.proximoRegistro());
+        }
+    }
+
+    // So o cabecalho conta: os registros seguintes nao mudam o separador
+    @Test
+    void detectaVirgulaMesmoComPontoEVirgulaNosRegistros() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\nAna;Bia;Carla,1\n")) {
+            assertEquals(',', leitor.getSeparador());
+            leitor.proximoRegistro();
+            assertEquals(List.of("Ana;Bia;Carla", "1"), leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void campoEntreAspasPodeConterOSeparador() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\n\"Silva, Ana\",1\n")) {
+            leitor.proximoRegistro();
+            assertEquals(List.of("Silva, Ana", "1"), leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void aspasDuplicadasViramUmaAspa() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\n\"Ana \"\"Bia\"\" Souza\",1\n\"\"\"\",2\n")) {
+            leitor.proximoRegistro();
+            assertEquals(List.of("Ana \"Bia\" Souza", "1"), leitor.proximoRegistro());
+            assertEquals(List.of("\"", "2"), leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void campoEntreAspasPodeTerQuebraDeLinha() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\n\"Ana\nSouza\",1\nBruno,2\n")) {
+            leitor.proximoRegistro();
+            assertEquals(List.of("Ana\nSouza", "1"), leitor.proximoRegistro());
+            assertEquals(2, leitor.getLinhaRegistro());
+            assertEquals(List.of("Bruno", "2"), leitor.proximoRegistro());
+            assertEquals(4, leitor.getLinhaRegistro());
+        }
+    }
+
+    @Test
+    void aceitaQuebrasDeLinhaCrlf() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\r\nAna,1\r\n\r\nBruno,2\r\n")) {
+            assertEquals(List.of("nome", "cpf"), leitor.proximoRegistro());
+            assertEquals(List.of("Ana", "1"), leitor.proximoRegistro());
+            assertEquals(List.of("Bruno", "2"), leitor.proximoRegistro());
+            assertEquals(4, leitor.getLinhaRegistro());
+            assertNull(leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void ignoraOBom() throws IOException {
+        try (LeitorCsv leitor = abrir("\uFEFFnome;cpf\nAna;1\n")) {
+            assertEquals(';', leitor.getSeparador());
+            assertEquals(List.of("nome", "cpf"), leitor.proximoRegistro());
+            assertEquals(List.of("Ana", "1"), leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void ignoraLinhasEmBrancoEMantemCamposVazios() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\n\n\nAna,\n,1\n\n")) {
+            leitor.proximoRegistro();
+            assertEquals(List.of("Ana", ""), leitor.proximoRegistro());
+            assertEquals(4, leitor.getLinhaRegistro());
+            assertEquals(List.of("", "1"), leitor.proximoRegistro());
+            assertNull(leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void aspasSemFechamentoInterrompemALeitura() throws IOException {
+        try (LeitorCsv leitor = abrir("nome,cpf\n\"Ana,1\nBruno,2\n")) {
+            leitor.proximoRegistro();
+            IOException erro = assertThrows(IOException.class, leitor::proximoRegistro);
+            assertTrue(erro.getMessage().contains("linha 2"), erro.getMessage());
+        }
+    }
+
+    // O limite conta os caracteres do registro, incluindo a quebra de linha
+    @Test
+    void aceitaRegistroNoLimiteDeTamanho() throws IOException {
+        String campo = "a".repeat(TAMANHO_MAXIMO_REGISTRO - 1);
+        try (LeitorCsv leitor = abrir("nome,cpf\n" + campo + "\nAna,1\n")) {
+            leitor.proximoRegistro();
+            assertEquals(List.of(campo), leitor.proximoRegistro());
+            assertEquals(List.of("Ana", "1"), leitor.proximoRegistro());
+        }
+    }
+
+    @Test
+    void recusaRegistroAcimaDoLimiteDeTamanho() throws IOException {
+        String campo = "a".repeat(TAMANHO_MAXIMO_REGISTRO);
+        try (LeitorCsv leitor = abrir("nome,cpf\n" + campo + "\nAna,1\n")) {
+            leitor.proximoRegistro();
+            IOException erro = assertThrows(IOException.class, leitor::proximoRegistro);
+            assertTrue(erro.getMessage().contains("linha 2"), erro.getMessage());
+        }
+    }
+
+    // Aspas sem fechamento em um arquivo grande param no limite em vez de
+    // acumular o resto do arquivo na memoria
+    @Test
+    void aspasSemFechamentoParamNoLimiteDeTamanho() throws IOException {
+        String linhas = "Ana,1\n".repeat(TAMANHO_MAXIMO_REGISTRO);
+        try (LeitorCsv leitor = abrir("nome,cpf\n\"" + linhas)) {
+            leitor.proximoRegistro();
+            IOException erro = assertThrows(IOException.class, leitor::proximoRegistro);
+            assertTrue(erro.getMessage().contains("passa de"), erro.getMessage());
+        }
+    }
+
+}
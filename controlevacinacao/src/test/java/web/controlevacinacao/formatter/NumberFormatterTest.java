@@ -0,0 +1,127 @@
+package web.controlevacinacao.formatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// O caminho rapido do NumberFormatter (formatarAgrupado) precisa dar sempre o
+// mesmo texto que o DecimalFormat que ele substitui
+class NumberFormatterTest {
+
+	private static final List<Locale> LOCALES = List.of(Locale.of("pt", "BR"), Locale.US, Locale.GERMANY,
+			Locale.FRANCE, Locale.of("de", "CH"), Locale.of("en", "IN"));
+	private static final List<String> PADROES = List.of("#,##0", "#,##0.00", "#,##0.0", "#,##0.000");
+
+	private static NumberFormatter<Number> formatter(String padrao) {
+		return new NumberFormatter<>() {
+			@Override
+			public String pattern(Locale locale) {
+				return padrao;
+			}
+		};
+	}
+
+	private static String esperado(String padrao, Locale locale, Number numero) {
+		return new DecimalFormat(padrao, new DecimalFormatSymbols(locale)).format(numero);
+	}
+
+	private static void comparar(Number numero) {
+		for (String padrao : PADROES) {
+			NumberFormatter<Number> formatter = formatter(padrao);
+			for (Locale locale : LOCALES) {
+				assertEquals(esperado(padrao, locale, numero), formatter.print(numero, locale),
+						() -> numero + " com " + padrao + " em " + locale);
+			}
+		}
+	}
+
+	@Test
+	void negativosQueArredondamParaZeroMantemOSinal() {
+		for (String valor : List.of("-0.001", "-0.004", "-0.005", "-0.0049", "-0.4", "-0.5", "-0.05", "-0.0005")) {
+			comparar(new BigDecimal(valor));
+		}
+	}
+
+	@Test
+	void valoresMenoresQueUm() {
+		for (String valor : List.of("0", "0.0", "0.00", "0.001", "0.005", "0.015", "0.025", "0.1", "0.5", "0.9",
+				"0.99", "0.995", "0.999", "0.0000001", "-0.99", "-0.995")) {
+			comparar(new BigDecimal(valor));
+		}
+	}
+
+	@Test
+	void arredondamentoHalfEven() {
+		for (String valor : List.of("0.125", "0.135", "1.5", "2.5", "-1.5", "-2.5", "1234.565", "1234.575",
+				"999.995", "999999.5", "-999999.5")) {
+			comparar(new BigDecimal(valor));
+		}
+	}
+
+	@Test
+	void comESemCasasDecimais() {
+		BigDecimal valor = new BigDecimal("1234567.891");
+		Locale ptBr = Locale.of("pt", "BR");
+		assertEquals("1.234.568", formatter("#,##0").print(valor, ptBr));
+		assertEquals("1.234.567,89", formatter("#,##0.00").print(valor, ptBr));
+		comparar(valor);
+	}
+
+	@Test
+	void grupos() {
+		for (String valor : List.of("1", "12", "123", "1234", "12345", "123456", "1234567", "-1234567",
+				"100000000000000000000000.5")) {
+			comparar(new BigDecimal(valor));
+		}
+	}
+
+	@Test
+	void tiposInteiros() {
+		for (long valor : new long[] { 0, 1, -1, 999, 1000, -1000, Integer.MAX_VALUE, Integer.MIN_VALUE }) {
+			comparar((int) valor);
+			comparar(valor);
+		}
+		comparar(Long.MAX_VALUE);
+		comparar(Long.MIN_VALUE);
+		comparar((short) -32768);
+		comparar((byte) 127);
+		comparar(new BigInteger("-123456789012345678901234567890"));
+	}
+
+	@Test
+	void doubleContinuaComODecimalFormat() {
+		for (double valor : new double[] { 0.125, 2.675, -0.004, 1e15, -0.0 }) {
+			comparar(valor);
+		}
+	}
+
+	@Test
+	void valoresAleatorios() {
+		Random random = new Random(20241030);
+		for (int i = 0; i < 20_000; i++) {
+			BigDecimal valor = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(12) - 2);
+			comparar(valor);
+			comparar(random.nextInt() >> random.nextInt(32));
+		}
+	}
+
+	@Test
+	void parseLeOQuePrintEscreveu() throws ParseException {
+		Locale ptBr = Locale.of("pt", "BR");
+		NumberFormatter<Number> formatter = formatter("#,##0.00");
+		for (String valor : List.of("0.00", "-0.50", "1234.56", "-1234567.89")) {
+			BigDecimal numero = new BigDecimal(valor);
+			assertEquals(0, numero.compareTo((BigDecimal) formatter.parse(formatter.print(numero, ptBr), ptBr)));
+		}
+	}
+
+}
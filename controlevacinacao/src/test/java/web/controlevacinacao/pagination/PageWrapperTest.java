@@ -0,0 +1,131 @@
+package web.controlevacinacao.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+// Os links montados pelo ModeloUrl a partir da URL da requisicao: parametros
+// sem valor sao descartados, o "+" vira %20 e cada tipo de link troca so os
+// seus parametros
+class PageWrapperTest {
+
+	private static final String BASE = "http://localhost/pessoas/pesquisar";
+
+	private static MockHttpServletRequest requisicao(String caminho, String consulta) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", caminho);
+		request.setQueryString(consulta);
+		return request;
+	}
+
+	private static ModeloUrl modelo(String consulta) {
+		return ModeloUrl.de(requisicao("/pessoas/pesquisar", consulta));
+	}
+
+	private static PageWrapper<String> wrapper(String consulta, Sort sort) {
+		return new PageWrapper<>(new PageImpl<>(List.of("a"), PageRequest.of(0, 10, sort), 100),
+				requisicao("/pessoas/pesquisar", consulta));
+	}
+
+	@Test
+	void semConsulta() {
+		assertEquals(BASE, modelo(null).completa());
+		assertEquals(BASE + "?", modelo(null).prefixo(BASE, Set.of()));
+		assertEquals(BASE + "?page=2", wrapper(null, Sort.unsorted()).urlParaPagina(2));
+	}
+
+	@Test
+	void consultaVazia() {
+		assertEquals(BASE, modelo("").completa());
+		assertEquals(BASE + "?page=0", wrapper("", Sort.unsorted()).urlParaPagina(0));
+	}
+
+	@Test
+	void parametrosSemValorSaoDescartados() {
+		assertEquals(BASE + "?cpf=123&page=1", modelo("nome=&cpf=123&page=1&profissao=").completa());
+		assertEquals(BASE, modelo("nome=&cpf=").completa());
+		assertEquals(BASE + "?cpf=123&page=3", wrapper("nome=&cpf=123&page=1&profissao=", Sort.unsorted())
+				.urlParaPagina(3));
+	}
+
+	// Sem "=" o parametro e mantido, como antes, e os trechos vazios entre "&"
+	// somem
+	@Test
+	void parametrosSemIgualSaoMantidos() {
+		assertEquals(BASE + "?nome=Ana&ativos", modelo("nome=Ana&ativos&&cpf=").completa());
+		assertEquals(BASE + "?ativos&page=1", modelo("&ativos&page=1&").completa());
+		assertEquals(BASE + "?ativos&", modelo("ativos&page=1").prefixo(BASE, Set.of("page")));
+	}
+
+	@Test
+	void maisViraEspacoCodificado() {
+		assertEquals(BASE + "?nome=Jo%C3%A3o%20da%20Silva&sort=nome,asc",
+				modelo("nome=Jo%C3%A3o+da+Silva&sort=nome,asc").completa());
+		assertEquals("http://localhost/pessoas/a%20b?nome=a%20b",
+				ModeloUrl.de(requisicao("/pessoas/a+b", "nome=a+b")).completa());
+		// %2B e um "+" de verdade e continua codificado
+		assertEquals(BASE + "?nome=a%2Bb", modelo("nome=a%2Bb").completa());
+	}
+
+	@Test
+	void paginacaoTrocaPaginaECursor() {
+		assertEquals(BASE + "?nome=a&page=0", wrapper("nome=a&cursorValor=x&cursorCodigo=5&page=2&cursorAnterior=true",
+				Sort.unsorted()).urlParaPagina(0));
+		assertEquals(BASE + "?nome=a&cursorAnterior=true", wrapper("page=2&nome=a", Sort.unsorted())
+				.urlUltimaPagina());
+	}
+
+	@Test
+	void ordenacaoTrocaSortEMantemFiltros() {
+		PageWrapper<String> pagina = wrapper("nome=Jo%C3%A3o+Silva&sort=nome,asc&page=2&cursorCodigo=9",
+				Sort.by("nome"));
+		assertEquals(BASE + "?nome=Jo%C3%A3o%20Silva&page=2&sort=nome,desc", pagina.urlInvertendoDirecaoOrdem("nome"));
+		assertEquals(BASE + "?nome=Jo%C3%A3o%20Silva&page=2&sort=cpf,asc", pagina.urlInvertendoDirecaoOrdem("cpf"));
+		// Os links de ordenacao nao alteram os de paginacao
+		assertEquals(BASE + "?nome=Jo%C3%A3o%20Silva&sort=nome,asc&page=1", pagina.urlParaPagina(1));
+	}
+
+	public static class Registro {
+
+		private final Long codigo;
+		private final String nome;
+
+		Registro(Long codigo, String nome) {
+			this.codigo = codigo;
+			this.nome = nome;
+		}
+
+		public Long getCodigo() {
+			return codigo;
+		}
+
+		public String getNome() {
+			return nome;
+		}
+
+	}
+
+	// Um valor nulo nao cabe em cursorValor, o link leva a marca cursorNulo
+	@Test
+	void cursorComValorNulo() {
+		PageWrapper<Registro> pagina = new PageWrapper<>(new PageImpl<>(
+				List.of(new Registro(1L, "Ana"), new Registro(2L, null)), PageRequest.of(0, 2, Sort.by("nome")), 10),
+				requisicao("/pessoas/pesquisar", "sort=nome,asc&cursorCodigo=9&cursorNulo=true"));
+		assertEquals(BASE + "?sort=nome,asc&cursorCodigo=2&cursorNulo=true", pagina.urlProximaPagina());
+		assertEquals(BASE + "?sort=nome,asc&cursorCodigo=1&cursorValor=Ana&cursorAnterior=true",
+				pagina.urlPaginaAnterior());
+	}
+
+	@Test
+	void exportacaoSemPaginacao() {
+		assertEquals("http://localhost/pessoas/exportar?nome=a&sort=nome,asc&formato=csv",
+				wrapper("nome=a&page=2&size=10&sort=nome,asc&formato=xlsx", Sort.by("nome")).urlExportacao("csv"));
+	}
+
+}
@@ -0,0 +1,184 @@
+package web.controlevacinacao.repository.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+// As condicoes da paginacao por chave e a montagem da pagina a partir do
+// resultado com o registro extra
+class PaginacaoUtilTest {
+
+	private static final Set<String> ATRIBUTOS = Set.of("codigo", "nome", "descricao");
+	private static final Sort NOME = Sort.by("nome");
+	private static final Sort NOME_DESC = Sort.by(Sort.Direction.DESC, "nome");
+
+	private static CursorPaginacao cursor(String valor, Long codigo, boolean anterior) {
+		CursorPaginacao cursor = new CursorPaginacao();
+		cursor.setCursorValor(valor);
+		cursor.setCursorCodigo(codigo);
+		cursor.setCursorAnterior(anterior);
+		return cursor;
+	}
+
+	private static CursorPaginacao cursorNulo(Long codigo, boolean anterior) {
+		CursorPaginacao cursor = cursor(null, codigo, anterior);
+		cursor.setCursorNulo(true);
+		return cursor;
+	}
+
+	@Test
+	void condicaoPeloCodigo() {
+		assertEquals("v.codigo > :cursorCodigo",
+				PaginacaoUtil.condicaoCursor("v", Sort.unsorted(), cursor(null, 10L, false), ATRIBUTOS));
+		assertEquals("v.codigo < :cursorCodigo",
+				PaginacaoUtil.condicaoCursor("v", Sort.unsorted(), cursor(null, 10L, true), ATRIBUTOS));
+		assertEquals("v.codigo > :cursorCodigo", PaginacaoUtil.condicaoCursor("v",
+				Sort.by(Sort.Direction.DESC, "codigo"), cursor(null, 10L, true), ATRIBUTOS));
+	}
+
+	@Test
+	void condicaoComparaALinhaInteira() {
+		assertEquals("(v.nome, v.codigo) > (:cursorValor, :cursorCodigo)",
+				PaginacaoUtil.condicaoCursor("v", NOME, cursor("Gripe", 10L, false), ATRIBUTOS));
+		assertEquals("(v.nome, v.codigo) < (:cursorValor, :cursorCodigo)",
+				PaginacaoUtil.condicaoCursor("v", NOME, cursor("Gripe", 10L, true), ATRIBUTOS));
+		assertEquals("(v.nome, v.codigo) < (:cursorValor, :cursorCodigo)",
+				PaginacaoUtil.condicaoCursor("v", NOME_DESC, cursor("Gripe", 10L, false), ATRIBUTOS));
+		assertEquals("(v.nome, v.codigo) > (:cursorValor, :cursorCodigo)",
+				PaginacaoUtil.condicaoCursor("v", NOME_DESC, cursor("Gripe", 10L, true), ATRIBUTOS));
+	}
+
+	// O cursor em um registro com o atributo nulo so avanca entre os nulos
+	@Test
+	void condicaoComCursorNulo() {
+		assertEquals("(v.descricao is null and v.codigo > :cursorCodigo)", PaginacaoUtil.condicaoCursor("v",
+				Sort.by("descricao"), cursorNulo(10L, false), ATRIBUTOS));
+		assertEquals("(v.descricao is null and v.codigo < :cursorCodigo)", PaginacaoUtil.condicaoCursor("v",
+				Sort.by("descricao"), cursorNulo(10L, true), ATRIBUTOS));
+		// Ordenando pelo codigo a marca de nulo nao tem efeito
+		assertEquals("v.codigo > :cursorCodigo",
+				PaginacaoUtil.condicaoCursor("v", Sort.unsorted(), cursorNulo(10L, false), ATRIBUTOS));
+	}
+
+	@Test
+	void semCondicaoSemCodigoOuSemValor() {
+		// Primeira pagina e ultima pagina
+		assertNull(PaginacaoUtil.condicaoCursor("v", NOME, new CursorPaginacao(), ATRIBUTOS));
+		assertNull(PaginacaoUtil.condicaoCursor("v", NOME, cursor(null, null, true), ATRIBUTOS));
+		// Ordenando pelo nome o codigo sozinho nao diz onde o cursor esta
+		assertNull(PaginacaoUtil.condicaoCursor("v", NOME, cursor(null, 10L, false), ATRIBUTOS));
+		assertFalse(PaginacaoUtil.temCondicaoCursor(NOME, cursor(null, 10L, false)));
+		assertTrue(PaginacaoUtil.temCondicaoCursor(NOME, cursorNulo(10L, false)));
+	}
+
+	// Na ordem crescente os nulos vem depois de todos os valores, na
+	// decrescente antes
+	@Test
+	void continuacaoDepoisDaFronteiraDosNulos() {
+		assertEquals("v.nome is null",
+				PaginacaoUtil.condicaoContinuacao("v", NOME, cursor("Gripe", 10L, false), ATRIBUTOS));
+		assertNull(PaginacaoUtil.condicaoContinuacao("v", NOME, cursor("Gripe", 10L, true), ATRIBUTOS));
+		assertNull(PaginacaoUtil.condicaoContinuacao("v", NOME, cursorNulo(10L, false), ATRIBUTOS));
+		assertEquals("v.nome is not null",
+				PaginacaoUtil.condicaoContinuacao("v", NOME, cursorNulo(10L, true), ATRIBUTOS));
+		assertEquals("v.nome is not null",
+				PaginacaoUtil.condicaoContinuacao("v", NOME_DESC, cursorNulo(10L, false), ATRIBUTOS));
+		assertEquals("v.nome is null",
+				PaginacaoUtil.condicaoContinuacao("v", NOME_DESC, cursor("Gripe", 10L, true), ATRIBUTOS));
+		assertNull(PaginacaoUtil.condicaoContinuacao("v", Sort.unsorted(), cursor(null, 10L, false), ATRIBUTOS));
+		assertNull(PaginacaoUtil.condicaoContinuacao("v", NOME, new CursorPaginacao(), ATRIBUTOS));
+	}
+
+	@Test
+	void formaDoCursorSeparaAsConsultas() {
+		assertEquals("offset", PaginacaoUtil.formaCursor(NOME, new CursorPaginacao()));
+		assertEquals("anterior", PaginacaoUtil.formaCursor(NOME, cursor(null, null, true)));
+		assertEquals("proxima+condicao", PaginacaoUtil.formaCursor(NOME, cursor("Gripe", 10L, false)));
+		assertEquals("proxima+condicao-nulo", PaginacaoUtil.formaCursor(NOME, cursorNulo(10L, false)));
+		assertEquals("anterior+condicao", PaginacaoUtil.formaCursor(Sort.unsorted(), cursorNulo(10L, true)));
+	}
+
+	@Test
+	void ordemDoCursorInverteParaTras() {
+		assertEquals(" order by v.nome asc, v.codigo asc",
+				PaginacaoUtil.clausulaOrdemCursor("v", NOME, cursor("Gripe", 10L, false), ATRIBUTOS));
+		assertEquals(" order by v.nome desc, v.codigo desc",
+				PaginacaoUtil.clausulaOrdemCursor("v", NOME, cursor("Gripe", 10L, true), ATRIBUTOS));
+		assertEquals(" order by v.codigo desc",
+				PaginacaoUtil.clausulaOrdemCursor("v", Sort.unsorted(), cursor(null, null, true), ATRIBUTOS));
+	}
+
+	@Test
+	void atributoNaoPermitidoERecusado() {
+		assertThrows(IllegalArgumentException.class, () -> PaginacaoUtil.condicaoCursor("v", Sort.by("status"),
+				cursor("ATIVO", 10L, false), ATRIBUTOS));
+		assertThrows(IllegalArgumentException.class,
+				() -> PaginacaoUtil.clausulaOrdem("v", Sort.by("nome; drop table vacina"), ATRIBUTOS));
+	}
+
+	@Test
+	void paginaPorOffsetDescartaORegistroExtra() {
+		Pageable pageable = PageRequest.of(1, 3, NOME);
+		Page<Integer> pagina = PaginacaoUtil.criarPagina(List.of(4, 5, 6, 7), pageable, new CursorPaginacao(), 20,
+				TipoTotal.EXATO);
+		assertEquals(List.of(4, 5, 6), pagina.getContent());
+		assertTrue(pagina.hasNext());
+		assertEquals(20, pagina.getTotalElements());
+
+		Page<Integer> ultima = PaginacaoUtil.criarPagina(List.of(19, 20), PageRequest.of(6, 3, NOME),
+				new CursorPaginacao(), -1, TipoTotal.DESCONHECIDO);
+		assertEquals(List.of(19, 20), ultima.getContent());
+		assertFalse(ultima.hasNext());
+	}
+
+	@Test
+	void paginaParaFrente() {
+		Pageable pageable = PageRequest.of(0, 3, NOME);
+		Page<Integer> pagina = PaginacaoUtil.criarPagina(List.of(4, 5, 6, 7), pageable, cursor("c", 3L, false), -1,
+				TipoTotal.DESCONHECIDO);
+		assertEquals(List.of(4, 5, 6), pagina.getContent());
+		assertTrue(pagina.hasPrevious());
+		assertTrue(pagina.hasNext());
+
+		Page<Integer> fim = PaginacaoUtil.criarPagina(List.of(4, 5), pageable, cursor("c", 3L, false), -1,
+				TipoTotal.DESCONHECIDO);
+		assertTrue(fim.hasPrevious());
+		assertFalse(fim.hasNext());
+	}
+
+	// Para tras a consulta vem na ordem invertida e a pagina e desinvertida
+	@Test
+	void paginaParaTras() {
+		Pageable pageable = PageRequest.of(0, 3, NOME);
+		Page<Integer> pagina = PaginacaoUtil.criarPagina(List.of(6, 5, 4, 3), pageable, cursor("g", 7L, true), -1,
+				TipoTotal.DESCONHECIDO);
+		assertEquals(List.of(4, 5, 6), pagina.getContent());
+		assertTrue(pagina.hasPrevious());
+		assertTrue(pagina.hasNext());
+
+		Page<Integer> inicio = PaginacaoUtil.criarPagina(List.of(2, 1), pageable, cursor("c", 3L, true), -1,
+				TipoTotal.DESCONHECIDO);
+		assertEquals(List.of(1, 2), inicio.getContent());
+		assertFalse(inicio.hasPrevious());
+		assertTrue(inicio.hasNext());
+
+		// Ultima pagina: para tras a partir do fim
+		Page<Integer> ultima = PaginacaoUtil.criarPagina(List.of(20, 19, 18, 17), pageable, cursor(null, null, true),
+				-1, TipoTotal.DESCONHECIDO);
+		assertEquals(List.of(18, 19, 20), ultima.getContent());
+		assertTrue(ultima.hasPrevious());
+		assertFalse(ultima.hasNext());
+	}
+
+}
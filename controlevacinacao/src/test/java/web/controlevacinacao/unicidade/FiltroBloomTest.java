@@ -0,0 +1,112 @@
+package web.controlevacinacao.unicidade;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+// O filtro nunca pode dar falso negativo (um CPF cadastrado tratado como novo)
+// e a taxa de falsos positivos estimada, exposta nas metricas, precisa
+// acompanhar a medida
+class FiltroBloomTest {
+
+    private static final int ELEMENTOS = 100_000;
+    private static final double TAXA = 0.01;
+
+    // CPFs de 11 digitos: os pares vao para o filtro, os impares nao
+    private static String cpf(long i) {
+        return String.format("%011d", i * 7919 % 100_000_000_000L);
+    }
+
+    @Test
+    void vazioNaoContemNada() {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS, TAXA);
+        assertEquals(0.0, filtro.getTaxaFalsosPositivosEstimada());
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(filtro.talvezContenha(cpf(i)));
+        }
+    }
+
+    @Test
+    void semFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS, TAXA);
+        for (int i = 0; i < ELEMENTOS; i++) {
+            filtro.adicionar(cpf(2 * i));
+        }
+        for (int i = 0; i < ELEMENTOS; i++) {
+            assertTrue(filtro.talvezContenha(cpf(2 * i)), cpf(2 * i));
+        }
+    }
+
+    @Test
+    void taxaEstimadaAcompanhaAMedida() {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS, TAXA);
+        for (int i = 0; i < ELEMENTOS; i++) {
+            filtro.adicionar(cpf(2 * i));
+        }
+        int falsosPositivos = 0;
+        for (int i = 0; i < ELEMENTOS; i++) {
+            if (filtro.talvezContenha(cpf(2 * i + 1))) {
+                falsosPositivos++;
+            }
+        }
+        double medida = (double) falsosPositivos / ELEMENTOS;
+        double estimada = filtro.getTaxaFalsosPositivosEstimada();
+        assertTrue(medida <= TAXA * 1.5, () -> "taxa medida " + medida);
+        assertTrue(Math.abs(estimada - medida) <= TAXA * 0.3,
+                () -> "taxa estimada " + estimada + ", medida " + medida);
+    }
+
+    // A estimativa cresce com a ocupacao: passar da capacidade piora a taxa, o
+    // que leva o FiltroCpf a remontar o filtro
+    @Test
+    void taxaEstimadaCresceAlemDaCapacidade() {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS, TAXA);
+        for (int i = 0; i < ELEMENTOS / 2; i++) {
+            filtro.adicionar(cpf(i));
+        }
+        double metade = filtro.getTaxaFalsosPositivosEstimada();
+        for (int i = ELEMENTOS / 2; i < 2 * ELEMENTOS; i++) {
+            filtro.adicionar(cpf(i));
+        }
+        double dobro = filtro.getTaxaFalsosPositivosEstimada();
+        assertTrue(metade < TAXA && dobro > TAXA, () -> metade + " " + dobro);
+    }
+
+    // Os bits sao ligados com getAndAccumulate: threads gravando na mesma
+    // palavra do vetor nao podem perder os bits umas das outras
+    @Test
+    void adicoesConcorrentesNaoSePerdem() throws Exception {
+        FiltroBloom filtro = new FiltroBloom(ELEMENTOS, TAXA);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int inicio = t;
+                tarefas.add(executor.submit(() -> {
+                    for (int i = inicio; i < ELEMENTOS; i += threads) {
+                        filtro.adicionar(cpf(i));
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < ELEMENTOS; i++) {
+            assertTrue(filtro.talvezContenha(cpf(i)), cpf(i));
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package web.controlevacinacao.unicidade;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import web.controlevacinacao.repository.carga.CargaPessoaRepository;
+
+// A janela da remontagem: um CPF que entrou no filtro antigo mas cuja transacao
+// ainda nao confirmou quando a leitura comecou nao pode sumir do filtro
+class FiltroCpfTest {
+
+    private static final String CADASTRADO = "11111111111";
+    private static final String EM_GRAVACAO = "22222222222";
+    private static final String DURANTE_MONTAGEM = "33333333333";
+    private static final String NUNCA_GRAVADO = "44444444444";
+
+    // A tabela pessoa: cada leitura ve os CPFs confirmados quando comeca. Uma
+    // leitura pode ser pausada antes de comecar para o teste observar o filtro.
+    private static class TabelaPessoa extends CargaPessoaRepository {
+
+        private final List<String> confirmados = new CopyOnWriteArrayList<>();
+        private final AtomicInteger leituras = new AtomicInteger();
+        private volatile int leituraPausada;
+        private final CountDownLatch pausou = new CountDownLatch(1);
+        private final CountDownLatch continuar = new CountDownLatch(1);
+
+        TabelaPessoa(String... cpfs) {
+            super(null);
+            confirmados.addAll(List.of(cpfs));
+        }
+
+        void confirmar(String cpf) {
+            confirmados.add(cpf);
+        }
+
+        // Pausa a leitura de numero indicado. Cada montagem faz duas leituras, as do
+        // aquecimento sao a 1 e a 2
+        void pausarLeitura(int numero) {
+            leituraPausada = numero;
+        }
+
+        void aguardarPausa() throws InterruptedException {
+            assertTrue(pausou.await(10, TimeUnit.SECONDS), "a leitura nao chegou na pausa");
+        }
+
+        void liberar() {
+            continuar.countDown();
+        }
+
+        @Override
+        public long contar() {
+            return confirmados.size();
+        }
+
+        @Override
+        public void percorrerCpfs(int tamanhoFetch, Consumer<String> consumidor) {
+            if (leituras.incrementAndGet() == leituraPausada) {
+                pausou.countDown();
+                try {
+                    continuar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (String cpf : List.copyOf(confirmados)) {
+                consumidor.accept(cpf);
+            }
+        }
+
+    }
+
+    private static final PlatformTransactionManager SEM_TRANSACAO = new PlatformTransactionManager() {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+
+    };
+
+    // Taxa baixa para que um falso positivo nao mascare o resultado
+    private static FiltroCpf filtro(TabelaPessoa tabela) {
+        return new FiltroCpf(tabela, SEM_TRANSACAO, new SimpleMeterRegistry(), 1000, 1e-9, 100);
+    }
+
+    @Test
+    void cpfNormalizadoNaConsulta() {
+        FiltroCpf filtroCpf = filtro(new TabelaPessoa(CADASTRADO));
+        filtroCpf.aquecer();
+
+        assertTrue(filtroCpf.talvezExista("111.111.111-11"));
+        assertFalse(filtroCpf.talvezExista(NUNCA_GRAVADO));
+    }
+
+    @Test
+    void cpfAdicionadoDuranteAMontagemEntraNoFiltroNovo() throws Exception {
+        TabelaPessoa tabela = new TabelaPessoa(CADASTRADO);
+        FiltroCpf filtroCpf = filtro(tabela);
+        filtroCpf.aquecer();
+
+        // Pausa a primeira leitura da remontagem e grava um CPF cuja transacao
+        // so confirma depois das duas leituras
+        tabela.pausarLeitura(3);
+        CompletableFuture<Void> remontagem = CompletableFuture.runAsync(filtroCpf::reconstruir);
+        tabela.aguardarPausa();
+        filtroCpf.adicionar(DURANTE_MONTAGEM);
+        tabela.liberar();
+        remontagem.get(10, TimeUnit.SECONDS);
+        tabela.confirmar(DURANTE_MONTAGEM);
+
+        assertTrue(filtroCpf.talvezExista(DURANTE_MONTAGEM));
+        assertTrue(filtroCpf.talvezExista(CADASTRADO));
+        assertFalse(filtroCpf.talvezExista(NUNCA_GRAVADO));
+    }
+
+    @Test
+    void cpfEmGravacaoContinuaVisivelEntreATrocaEASegundaLeitura() throws Exception {
+        TabelaPessoa tabela = new TabelaPessoa(CADASTRADO);
+        FiltroCpf filtroCpf = filtro(tabela);
+        filtroCpf.aquecer();
+
+        // Entrou no filtro antigo, mas a transacao so confirma depois da
+        // primeira leitura da remontagem
+        filtroCpf.adicionar(EM_GRAVACAO);
+
+        // Pausa a segunda leitura: o filtro novo ja foi trocado e nao tem o CPF
+        tabela.pausarLeitura(4);
+        CompletableFuture<Void> remontagem = CompletableFuture.runAsync(filtroCpf::reconstruir);
+        tabela.aguardarPausa();
+        assertTrue(filtroCpf.talvezExista(EM_GRAVACAO), "o filtro anterior deve continuar sendo consultado");
+        assertFalse(filtroCpf.talvezExista(NUNCA_GRAVADO));
+
+        // Confirmado antes da segunda leitura, que o coloca no filtro novo
+        tabela.confirmar(EM_GRAVACAO);
+        tabela.liberar();
+        remontagem.get(10, TimeUnit.SECONDS);
+
+        assertTrue(filtroCpf.talvezExista(EM_GRAVACAO));
+        assertTrue(filtroCpf.talvezExista(CADASTRADO));
+        assertFalse(filtroCpf.talvezExista(NUNCA_GRAVADO));
+    }
+
+    // Uma gravacao que falhou nao volta para o filtro na remontagem
+    @Test
+    void remontagemDescartaCpfNuncaConfirmado() {
+        TabelaPessoa tabela = new TabelaPessoa(CADASTRADO);
+        FiltroCpf filtroCpf = filtro(tabela);
+        filtroCpf.aquecer();
+        filtroCpf.adicionar(NUNCA_GRAVADO);
+        assertTrue(filtroCpf.talvezExista(NUNCA_GRAVADO));
+
+        filtroCpf.reconstruir();
+
+        assertFalse(filtroCpf.talvezExista(NUNCA_GRAVADO));
+        assertTrue(filtroCpf.talvezExista(CADASTRADO));
+    }
+
+}
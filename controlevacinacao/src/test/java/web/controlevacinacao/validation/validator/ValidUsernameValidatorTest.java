@@ -0,0 +1,190 @@
+package web.controlevacinacao.validation.validator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.validation.ConstraintValidatorContext;
+
+// O ValidUsernameValidator de uma passada precisa aceitar e recusar os mesmos
+// nomes que a versao anterior, com a mesma mensagem, e a mesma instancia tem
+// que poder ser usada por varias threads ao mesmo tempo
+class ValidUsernameValidatorTest {
+
+	private static final String ALFABETO = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"
+			+ "!@#$%&*.,~^/\\+:;='`[](){}<>-_ \"?|\t" + "çÇéÉãÕßıİǅ٣①ªº€";
+	private static final List<String> NOMES_PROIBIDOS = List.of("root", "ROOT", "Root", "eu", "EU", "eU", "admin",
+			"ADMIN", "aDmIn", "admın", "admİn", "ADMİN", "rOOt");
+
+	// A versao anterior do validador, com as regras verificadas uma a uma e a
+	// mensagem montada a cada chamada. Devolve null quando o nome e valido.
+	static final class ValidadorAnterior {
+
+		private static final List<String> LISTA_CARACTERES_ESPECIAIS = List.of("!", "@", "#", "$", "%", "&", "*",
+				".", ",", "~", "^", "/", "\\", "+", ":", ";", "=", "'", "`", "[", "]", "(", ")", "{", "}", "<", ">",
+				"-", "_");
+		private static final List<String> LISTA_NOMES_USUARIO_PROIBIDOS = List.of("root", "eu", "admin");
+
+		static String validar(String nomeUsuario) {
+			StringBuilder mensagemFinal = new StringBuilder();
+			boolean valido = nomeUsuario.chars().anyMatch(c -> Character.isAlphabetic((char) c))
+					|| acrescentar(mensagemFinal, "Ao menos uma letra");
+			valido &= nomeUsuario.chars().anyMatch(c -> Character.isDigit((char) c))
+					|| acrescentar(mensagemFinal, "Ao menos um dígito");
+			valido &= nomeUsuario.chars().anyMatch(c -> LISTA_CARACTERES_ESPECIAIS.contains(String.valueOf((char) c)))
+					|| acrescentar(mensagemFinal, "Ao menos um caractere especial");
+			valido &= nomeUsuario.length() > 5 || acrescentar(mensagemFinal, "Tamanho mínimo de 5 caracteres");
+			valido &= nomeUsuario.length() < 21 || acrescentar(mensagemFinal, "Tamanho máximo de 20 caracteres");
+			valido &= nomeUsuario.chars().anyMatch(c -> Character.isUpperCase((char) c))
+					|| acrescentar(mensagemFinal, "Ao menos um caractere maiúsculo");
+			valido &= nomeUsuario.chars().anyMatch(c -> Character.isLowerCase((char) c))
+					|| acrescentar(mensagemFinal, "Ao menos um caractere minúsculo");
+			valido &= !LISTA_NOMES_USUARIO_PROIBIDOS.contains(nomeUsuario.toLowerCase())
+					|| acrescentar(mensagemFinal, "Não pode ser um nome proibido");
+			return valido ? null : mensagemFinal.toString();
+		}
+
+		private static boolean acrescentar(StringBuilder mensagemFinal, String mensagem) {
+			if (mensagemFinal.length() > 0) {
+				mensagemFinal.append("; ");
+			}
+			mensagemFinal.append(mensagem);
+			return false;
+		}
+
+	}
+
+	// Guarda o template da violacao montada pelo validador. Os builders devolvidos
+	// sao proxies que so repassam a chamada, o teste olha apenas a mensagem.
+	static final class ContextoRegistrado {
+
+		private String mensagem;
+		private final ConstraintValidatorContext contexto = (ConstraintValidatorContext) proxy(
+				ConstraintValidatorContext.class);
+
+		private Object proxy(Class<?> tipo) {
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { tipo }, (p, metodo, args) -> {
+				if (metodo.getName().equals("buildConstraintViolationWithTemplate")) {
+					mensagem = (String) args[0];
+				}
+				Class<?> retorno = metodo.getReturnType();
+				if (retorno == ConstraintValidatorContext.class) {
+					return contexto;
+				}
+				return retorno.isInterface() ? proxy(retorno) : null;
+			});
+		}
+
+		// null quando o nome foi aceito
+		String validar(ValidUsernameValidator validador, String nomeUsuario) {
+			mensagem = null;
+			boolean valido = validador.isValid(nomeUsuario, contexto);
+			assertEquals(valido, mensagem == null, () -> "isValid e mensagem divergem para " + nomeUsuario);
+			return mensagem;
+		}
+
+	}
+
+	private static List<String> nomesAleatorios(long semente, int quantidade) {
+		Random random = new Random(semente);
+		List<String> nomes = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			if (random.nextInt(20) == 0) {
+				nomes.add(NOMES_PROIBIDOS.get(random.nextInt(NOMES_PROIBIDOS.size())));
+				continue;
+			}
+			int tamanho = random.nextInt(26);
+			StringBuilder nome = new StringBuilder(tamanho);
+			for (int j = 0; j < tamanho; j++) {
+				nome.append(ALFABETO.charAt(random.nextInt(ALFABETO.length())));
+			}
+			nomes.add(nome.toString());
+		}
+		return nomes;
+	}
+
+	private static void comparar(ValidUsernameValidator validador, ContextoRegistrado contexto, String nomeUsuario) {
+		assertEquals(ValidadorAnterior.validar(nomeUsuario), contexto.validar(validador, nomeUsuario),
+				() -> "Resultado diferente para \"" + nomeUsuario + "\"");
+	}
+
+	@Test
+	void nuloEValido() {
+		assertTrue(new ValidUsernameValidator().isValid(null, null));
+	}
+
+	@Test
+	void casosConhecidos() {
+		ValidUsernameValidator validador = new ValidUsernameValidator();
+		ContextoRegistrado contexto = new ContextoRegistrado();
+		for (String nome : List.of("", "a", "Abc12!", "abc12!", "ABC12!", "Abcdef", "Abc!de", "Ab1!",
+				"Abcdefghij1234567890!", "Abcdefghij123456789!", "Çé1!aB", "Aé1€bc", "ab_C1d")) {
+			comparar(validador, contexto, nome);
+		}
+		for (String nome : NOMES_PROIBIDOS) {
+			comparar(validador, contexto, nome);
+		}
+	}
+
+	@Test
+	void mesmoResultadoQueAVersaoAnterior() {
+		ValidUsernameValidator validador = new ValidUsernameValidator();
+		ContextoRegistrado contexto = new ContextoRegistrado();
+		for (String nome : nomesAleatorios(20241030L, 50_000)) {
+			comparar(validador, contexto, nome);
+		}
+	}
+
+	// Uma instancia do validador e compartilhada pelo Hibernate Validator. A
+	// versao anterior guardava a mensagem num atributo e trocava mensagens entre
+	// threads: aqui todas as threads validam ao mesmo tempo e cada resultado e
+	// conferido com o esperado, calculado antes numa unica thread.
+	@Test
+	void mesmaInstanciaEmVariasThreads() throws Exception {
+		ValidUsernameValidator validador = new ValidUsernameValidator();
+		int threads = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch largada = new CountDownLatch(1);
+			List<Future<Integer>> resultados = new ArrayList<>(threads);
+			for (int t = 0; t < threads; t++) {
+				List<String> nomes = nomesAleatorios(t, 20_000);
+				List<String> esperados = new ArrayList<>(nomes.size());
+				for (String nome : nomes) {
+					esperados.add(ValidadorAnterior.validar(nome));
+				}
+				resultados.add(executor.submit(() -> {
+					ContextoRegistrado contexto = new ContextoRegistrado();
+					largada.await();
+					int divergentes = 0;
+					for (int i = 0; i < nomes.size(); i++) {
+						String mensagem = contexto.validar(validador, nomes.get(i));
+						if (!Objects.equals(esperados.get(i), mensagem)) {
+							divergentes++;
+						}
+					}
+					return divergentes;
+				}));
+			}
+			largada.countDown();
+			for (Future<Integer> resultado : resultados) {
+				assertEquals(0, resultado.get(1, TimeUnit.MINUTES).intValue());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}